@@ -16,6 +16,7 @@
  */
 package org.arquillian.spacelift;
 
+import org.arquillian.spacelift.Invokable.InvocationException;
 
 /**
  * Utility capable of loading interface implementations available on classpath indirectly.
@@ -53,6 +54,37 @@ public final class ImplementationLoader {
         return implementationOf(interfaceClass, SecurityActions.getThreadContextClassLoader());
     }
 
+    /**
+     * Creates a new instance of the class named by system property {@code propertyName}, using the {@link Thread} Context
+     * {@link ClassLoader}. If the property is not set, implementation is found the same way as by
+     * {@link #implementationOf(Class)}.
+     *
+     * The implementation class name must have a no-arg constructor.
+     *
+     * @param interfaceClass interface to find implementation for
+     * @param propertyName name of the system property that might contain fully qualified name of the implementation
+     * @return Implementation of interface class
+     * @throws InvocationException if implementation named by the property could not be instantiated
+     */
+    static <INTERFACE> INTERFACE implementationOf(final Class<INTERFACE> interfaceClass, final String propertyName)
+        throws InvocationException {
+        String className = System.getProperty(propertyName);
+        if (className == null || className.trim().length() == 0) {
+            return implementationOf(interfaceClass);
+        }
+
+        Class<?> implementationClass = Invokable.loadClass(SecurityActions.getThreadContextClassLoader(), className.trim());
+        if (!interfaceClass.isAssignableFrom(implementationClass)) {
+            throw new InvocationException("Class {0} set by {1} property does not implement {2}", className, propertyName,
+                interfaceClass.getName());
+        }
+        try {
+            return interfaceClass.cast(SecurityActions.newInstance(implementationClass));
+        } catch (RuntimeException e) {
+            throw new InvocationException(e, "Unable to instantiate {0} set by {1} property", className, propertyName);
+        }
+    }
+
     /**
      * Creates a new {@link ExecutionServiceFactory} instance of the specified user view type using the specified {@link ClassLoader}.
      * Will consult a configuration file visible to the specified {@link ClassLoader} named
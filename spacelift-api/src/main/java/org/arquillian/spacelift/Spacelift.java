@@ -17,13 +17,20 @@ import org.arquillian.spacelift.task.TaskRegistry;
  */
 public class Spacelift {
 
+    /**
+     * System property that allows to choose implementation of {@link ExecutionService}. It should contain fully qualified
+     * name of the implementation class, which must have a no-arg constructor. If not set, implementation registered in
+     * {@code META-INF/services} is used.
+     */
+    public static final String EXECUTION_SERVICE_PROPERTY = "spacelift.execution.service";
+
     /**
      * Creates a task based on task definition
      * @param taskDef Task definition
      * @return Instantiated task
      */
     public static <IN, OUT, TASK extends Task<? super IN, OUT>> TASK task(Class<TASK> taskDef) {
-        return new SpaceliftInstance().registry().find(taskDef);
+        return SpaceliftInstance.registry().find(taskDef);
     }
 
     /**
@@ -33,7 +40,7 @@ public class Spacelift {
      * @throws InvalidTaskException if no such task exists
      */
     public static Task<?, ?> task(String alias) throws InvalidTaskException {
-        return new SpaceliftInstance().registry().find(alias);
+        return SpaceliftInstance.registry().find(alias);
     }
 
     /**
@@ -44,7 +51,7 @@ public class Spacelift {
      */
     public static <IN, OUT, TASK extends Task<? super IN, OUT>> TASK task(IN input, Class<TASK> taskDef) {
         @SuppressWarnings("unchecked")
-        InjectTask<IN> task = new SpaceliftInstance().registry().find(InjectTask.class);
+        InjectTask<IN> task = SpaceliftInstance.registry().find(InjectTask.class);
         return task.passToNext(input).then(taskDef);
     }
 
@@ -57,20 +64,21 @@ public class Spacelift {
      */
     public static Task<?, ?> task(Object input, String alias) throws InvalidTaskException {
         @SuppressWarnings("unchecked")
-        InjectTask<Object> task = new SpaceliftInstance().registry().find(InjectTask.class);
+        InjectTask<Object> task = SpaceliftInstance.registry().find(InjectTask.class);
         return task.passToNext(input).then(alias);
     }
 
     public static TaskRegistry registry() {
-        return new SpaceliftInstance().registry();
+        return SpaceliftInstance.registry();
     }
 
     public static ExecutionService service() {
-        return new SpaceliftInstance().service();
+        return SpaceliftInstance.service();
     }
 
     /**
-     * This class should not be used externally, will be replaced by dependency injection
+     * This class should not be used externally, will be replaced by dependency injection. Service and registry are
+     * resolved once, when the class is initialized, so the lookups do not allocate.
      * @author kpiwko
      *
      */
@@ -82,7 +90,7 @@ public class Spacelift {
         private static TaskRegistry registry;
         static {
             try {
-                service = ImplementationLoader.implementationOf(ExecutionService.class);
+                service = ImplementationLoader.implementationOf(ExecutionService.class, EXECUTION_SERVICE_PROPERTY);
             } catch (InvocationException e) {
                 e.printStackTrace();
                 log.log(Level.SEVERE,
@@ -100,11 +108,11 @@ public class Spacelift {
             }
         }
 
-        public TaskRegistry registry() {
+        static TaskRegistry registry() {
             return registry;
         }
 
-        public ExecutionService service() {
+        static ExecutionService service() {
             return service;
         }
     }
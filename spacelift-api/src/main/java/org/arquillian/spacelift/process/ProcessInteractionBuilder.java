@@ -186,7 +186,22 @@ public class ProcessInteractionBuilder {
      * @return {@link ProcessInteraction}
      */
     public ProcessInteraction build() {
-        return new ProcessInteractionImpl(replyMap, transformer, allowedOutput, errorOutput, terminatingOutput, textTypedIn);
+        return new ProcessInteractionImpl(new LinkedHashMap<Pattern, String>(replyMap), transformer,
+            new ArrayList<Pattern>(allowedOutput), new ArrayList<Pattern>(errorOutput), new ArrayList<Pattern>(terminatingOutput),
+            textTypedIn);
+    }
+
+    /**
+     * Returns matcher compiled when {@code interaction} was built
+     *
+     * @param interaction the interaction
+     * @return compiled matcher or {@code null} if interaction was not created by this builder
+     */
+    static ProcessInteractionMatcher precompiledMatcher(ProcessInteraction interaction) {
+        if (interaction instanceof ProcessInteractionImpl) {
+            return ((ProcessInteractionImpl) interaction).matcher;
+        }
+        return null;
     }
 
     private static class ProcessInteractionImpl implements ProcessInteraction {
@@ -203,6 +218,8 @@ public class ProcessInteractionBuilder {
 
         private final OutputTransformer transformer;
 
+        private final ProcessInteractionMatcher matcher;
+
         public ProcessInteractionImpl(Map<Pattern, String> replyMap, OutputTransformer outputTransformer, List<Pattern> allowedOutput,
             List<Pattern> errorOutput, List<Pattern> terminatingOutput, String textTypedIn) {
             this.replyMap = replyMap;
@@ -211,6 +228,7 @@ public class ProcessInteractionBuilder {
             this.errorOutput = errorOutput;
             this.terminatingOutput = terminatingOutput;
             this.textTypedIn = textTypedIn;
+            this.matcher = ProcessInteractionMatcher.compile(this);
         }
 
         @Override
@@ -0,0 +1,309 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * All rules of a {@link ProcessInteraction} compiled into a single index, so it is possible to find out which rules fire for
+ * a sentence in one pass.
+ *
+ * Every distinct pattern is evaluated at most once per sentence. Patterns that start with a literal text are only evaluated if
+ * the sentence starts with the same text. Evaluation itself does not allocate any objects, it reuses matchers owned by
+ * {@link Evaluator}.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public final class ProcessInteractionMatcher {
+
+    /**
+     * Process should be terminated
+     */
+    public static final int TERMINATE = 1;
+
+    /**
+     * Process should be replied to
+     */
+    public static final int REPLY = 2;
+
+    /**
+     * Sentence should be printed to standard output
+     */
+    public static final int OUTPUT = 4;
+
+    /**
+     * Sentence should be printed to error output
+     */
+    public static final int ERROR = 8;
+
+    private static final String METACHARACTERS = "\\[](){}.*+?^$|";
+
+    private final Pattern[] patterns;
+    private final String[] prefixes;
+    private final int[] actions;
+    private final String[] replies;
+
+    // rules without literal prefix, these are always evaluated
+    private final int[] unprefixed;
+    // rules with literal prefix, indexed by the first character of the prefix
+    private final char[] firstCharacters;
+    private final int[][] prefixed;
+
+    private ProcessInteractionMatcher(List<Rule> rules) {
+        int size = rules.size();
+        this.patterns = new Pattern[size];
+        this.prefixes = new String[size];
+        this.actions = new int[size];
+        this.replies = new String[size];
+
+        List<Integer> unprefixedRules = new ArrayList<Integer>();
+        Map<Character, List<Integer>> prefixedRules = new TreeMap<Character, List<Integer>>();
+        for (int i = 0; i < size; i++) {
+            Rule rule = rules.get(i);
+            patterns[i] = rule.pattern;
+            prefixes[i] = literalPrefix(rule.pattern);
+            actions[i] = rule.actions;
+            replies[i] = rule.reply;
+
+            if (prefixes[i].length() == 0) {
+                unprefixedRules.add(i);
+            }
+            else {
+                Character c = prefixes[i].charAt(0);
+                List<Integer> bucket = prefixedRules.get(c);
+                if (bucket == null) {
+                    bucket = new ArrayList<Integer>();
+                    prefixedRules.put(c, bucket);
+                }
+                bucket.add(i);
+            }
+        }
+
+        this.unprefixed = toArray(unprefixedRules);
+        this.firstCharacters = new char[prefixedRules.size()];
+        this.prefixed = new int[prefixedRules.size()][];
+        int i = 0;
+        for (Map.Entry<Character, List<Integer>> entry : prefixedRules.entrySet()) {
+            firstCharacters[i] = entry.getKey();
+            prefixed[i++] = toArray(entry.getValue());
+        }
+    }
+
+    /**
+     * Compiles all rules of the {@code interaction}. Patterns used for multiple actions are merged into a single rule.
+     *
+     * @param interaction the interaction
+     * @return compiled matcher
+     */
+    public static ProcessInteractionMatcher compile(ProcessInteraction interaction) {
+        Map<String, Rule> rules = new LinkedHashMap<String, Rule>();
+
+        // reply rules go first, so the first matching reply is the one that was defined first
+        for (Map.Entry<Pattern, String> entry : interaction.replyMap().entrySet()) {
+            Rule rule = rule(rules, entry.getKey());
+            if (rule.reply == null) {
+                rule.reply = entry.getValue();
+                rule.actions |= REPLY;
+            }
+        }
+        for (Pattern p : interaction.terminatingOutput()) {
+            rule(rules, p).actions |= TERMINATE;
+        }
+        for (Pattern p : interaction.allowedOutput()) {
+            rule(rules, p).actions |= OUTPUT;
+        }
+        for (Pattern p : interaction.errorOutput()) {
+            rule(rules, p).actions |= ERROR;
+        }
+
+        return new ProcessInteractionMatcher(new ArrayList<Rule>(rules.values()));
+    }
+
+    /**
+     * Returns the matcher compiled when {@code interaction} was built by {@link ProcessInteractionBuilder} or compiles a new
+     * one for other implementations of {@link ProcessInteraction}.
+     *
+     * @param interaction the interaction
+     * @return compiled matcher
+     */
+    public static ProcessInteractionMatcher of(ProcessInteraction interaction) {
+        ProcessInteractionMatcher matcher = ProcessInteractionBuilder.precompiledMatcher(interaction);
+        return matcher != null ? matcher : compile(interaction);
+    }
+
+    /**
+     * Creates an evaluator of the rules. Evaluator is not thread safe, each thread has to use its own.
+     *
+     * @return new evaluator
+     */
+    public Evaluator evaluator() {
+        return new Evaluator();
+    }
+
+    /**
+     * Evaluator of compiled rules. It keeps matchers and result of the last evaluation.
+     */
+    public final class Evaluator {
+
+        private final Matcher[] matchers;
+        private String reply;
+
+        private Evaluator() {
+            this.matchers = new Matcher[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                matchers[i] = patterns[i].matcher("");
+            }
+        }
+
+        /**
+         * Finds out which actions fire for the {@code sentence}. Only rules that can contribute to {@code requestedActions}
+         * are evaluated.
+         *
+         * @param sentence the sentence
+         * @param requestedActions bit mask of actions to be checked, e.g. {@code TERMINATE | REPLY}
+         * @return bit mask of actions that fired
+         */
+        public int evaluate(CharSequence sentence, int requestedActions) {
+            this.reply = null;
+
+            int fired = 0;
+            int[] bucket = prefixedRules(sentence);
+
+            // merge both rule lists to keep definition order
+            int u = 0, p = 0;
+            while (u < unprefixed.length || (bucket != null && p < bucket.length)) {
+                int rule;
+                if (bucket == null || p >= bucket.length || (u < unprefixed.length && unprefixed[u] < bucket[p])) {
+                    rule = unprefixed[u++];
+                }
+                else {
+                    rule = bucket[p++];
+                }
+
+                // skip rules that would not fire anything new
+                int remaining = actions[rule] & requestedActions & ~fired;
+                if (remaining == 0) {
+                    continue;
+                }
+                if (!startsWith(sentence, prefixes[rule])) {
+                    continue;
+                }
+                if (matchers[rule].reset(sentence).matches()) {
+                    fired |= remaining;
+                    if ((remaining & REPLY) != 0) {
+                        reply = replies[rule];
+                    }
+                    // everything requested has already fired
+                    if ((fired & requestedActions) == requestedActions) {
+                        break;
+                    }
+                }
+            }
+
+            return fired;
+        }
+
+        /**
+         * Returns reply for the sentence passed to the last {@link #evaluate(CharSequence, int)} call
+         *
+         * @return the reply or {@code null} if no rule replied
+         */
+        public String reply() {
+            return reply;
+        }
+
+        private int[] prefixedRules(CharSequence sentence) {
+            if (sentence.length() == 0) {
+                return null;
+            }
+            int index = Arrays.binarySearch(firstCharacters, sentence.charAt(0));
+            return index >= 0 ? prefixed[index] : null;
+        }
+    }
+
+    private static boolean startsWith(CharSequence sentence, String prefix) {
+        int length = prefix.length();
+        if (sentence.length() < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (sentence.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extracts literal text every match of the {@code pattern} has to start with. Returns empty string if there is no such
+     * text or it cannot be easily determined.
+     */
+    static String literalPrefix(Pattern pattern) {
+        String regex = pattern.pattern();
+        // flags might change meaning of literals, alternation might not require the prefix at all
+        if (pattern.flags() != 0 || regex.indexOf('|') != -1) {
+            return "";
+        }
+
+        int start = regex.startsWith("^") ? 1 : 0;
+        int end = start;
+        while (end < regex.length() && METACHARACTERS.indexOf(regex.charAt(end)) == -1) {
+            end++;
+        }
+        // quantifier makes the last literal character optional
+        if (end < regex.length() && end > start && "*?{".indexOf(regex.charAt(end)) != -1) {
+            end--;
+        }
+        return regex.substring(start, end);
+    }
+
+    private static Rule rule(Map<String, Rule> rules, Pattern pattern) {
+        String key = pattern.flags() + "/" + pattern.pattern();
+        Rule rule = rules.get(key);
+        if (rule == null) {
+            rule = new Rule(pattern);
+            rules.put(key, rule);
+        }
+        return rule;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static class Rule {
+        final Pattern pattern;
+        int actions;
+        String reply;
+
+        Rule(Pattern pattern) {
+            this.pattern = pattern;
+        }
+    }
+}
@@ -21,6 +21,9 @@ import java.util.List;
 /**
  * An abstraction for process execution result. Allows to get process output and exit value
  *
+ * Results of processes executed by Spacelift implement {@link StreamingProcessResult}, which provides live views of the
+ * output and separate error output.
+ *
  * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
  *
  */
@@ -34,7 +37,8 @@ public interface ProcessResult {
     String processName();
 
     /**
-     * Returns output of the process split per line
+     * Returns output of the process split per line. Depending on configuration of the process, only part of the output
+     * might be retained.
      *
      * @return
      */
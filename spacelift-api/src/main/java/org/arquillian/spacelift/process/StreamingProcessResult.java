@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.process;
+
+import java.util.List;
+
+/**
+ * A process execution result that provides live views of the output and error output consumed separately from the
+ * standard output. It extends {@link ProcessResult}, so implementations of {@link ProcessResult} are not required to
+ * provide these.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public interface StreamingProcessResult extends ProcessResult {
+
+    /**
+     * Returns a live view of the output of the process. Iteration blocks until the process outputs next line and finishes
+     * when the output of the process is closed, so it can be used while the process is still running. Lines that were
+     * not retained are skipped.
+     *
+     * @return
+     */
+    Iterable<String> followOutput();
+
+    /**
+     * Returns error output of the process split per line. Error output is only available if it was consumed separately from
+     * the standard output, otherwise it is a part of {@link #output()} and this list is empty.
+     *
+     * @return
+     */
+    List<String> errorOutput();
+
+    /**
+     * Returns a live view of the error output of the process. Behaves the same way as {@link #followOutput()}. If error
+     * output is not consumed separately, iteration finishes immediately.
+     *
+     * @return
+     */
+    Iterable<String> followErrorOutput();
+
+    /**
+     * Releases resources held by the result, such as temporary files the output was spilled to. Only the output retained
+     * in memory is available afterwards.
+     */
+    void release();
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Task that passes its input to all its branches, executes them in parallel and returns their results in the order the
+ * branches were added. If any branch fails, the other branches are terminated and the task fails.
+ *
+ * A branch can be a chain of tasks, its first task gets the input.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <IN> Input of the branches
+ * @param <OUT> Output of the branches
+ */
+public class AllOfTask<IN, OUT> extends Task<IN, List<OUT>> {
+
+    private final List<Task<? super IN, ? extends OUT>> branches = new ArrayList<Task<? super IN, ? extends OUT>>();
+
+    /**
+     * Adds branches to be executed. Passing generic tasks creates a generic array, which causes an unchecked warning at
+     * the call site, {@link #branches(List)} can be used instead.
+     *
+     * @param branches the branches
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public AllOfTask<IN, OUT> branches(Task<? super IN, ? extends OUT>... branches) {
+        return branches(Arrays.asList(branches));
+    }
+
+    /**
+     * Adds branches to be executed
+     *
+     * @param branches the branches
+     * @return
+     */
+    public AllOfTask<IN, OUT> branches(List<? extends Task<? super IN, ? extends OUT>> branches) {
+        this.branches.addAll(branches);
+        return this;
+    }
+
+    @Override
+    protected List<OUT> process(final IN input) throws Exception {
+        List<Callable<OUT>> callables = new ArrayList<Callable<OUT>>(branches.size());
+        for (final Task<? super IN, ? extends OUT> branch : branches) {
+            callables.add(new Callable<OUT>() {
+                @Override
+                public OUT call() throws Exception {
+                    return branch.runWith(input);
+                }
+            });
+        }
+        return new ForkJoin<OUT>(getExecutionService(), callables).all(Math.max(1, callables.size()));
+    }
+}
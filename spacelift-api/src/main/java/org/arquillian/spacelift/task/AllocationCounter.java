@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+/**
+ * Reads number of bytes allocated by current thread, if supported by the JVM. HotSpot specific API is accessed by
+ * reflection, so Spacelift still runs on JVMs without it.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+final class AllocationCounter {
+
+    private static final Object THREAD_BEAN;
+    private static final Method GET_THREAD_ALLOCATED_BYTES;
+
+    static {
+        Object bean = null;
+        Method method = null;
+        try {
+            Class<?> beanType = Class.forName("com.sun.management.ThreadMXBean");
+            bean = ManagementFactory.getThreadMXBean();
+            if (beanType.isInstance(bean)
+                && (Boolean) beanType.getMethod("isThreadAllocatedMemorySupported").invoke(bean)) {
+                method = beanType.getMethod("getThreadAllocatedBytes", long.class);
+                beanType.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(bean, true);
+            }
+        } catch (Exception e) {
+            method = null;
+        }
+        THREAD_BEAN = bean;
+        GET_THREAD_ALLOCATED_BYTES = method;
+    }
+
+    private AllocationCounter() {
+        throw new UnsupportedOperationException("No instantiation");
+    }
+
+    /**
+     * Returns number of bytes allocated by current thread so far, or {@code -1} if it cannot be measured
+     *
+     * @return
+     */
+    static long allocatedBytes() {
+        if (GET_THREAD_ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (Long) GET_THREAD_ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
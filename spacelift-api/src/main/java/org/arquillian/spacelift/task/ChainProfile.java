@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a chain of tasks together with measurements of its stages, in the order they were executed
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <OUT> Output of the chain
+ */
+public class ChainProfile<OUT> {
+
+    private final OUT result;
+    private final List<StageProfile> stages;
+
+    ChainProfile(OUT result, List<StageProfile> stages) {
+        this.result = result;
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Returns output of the last task in the chain
+     *
+     * @return
+     */
+    public OUT getResult() {
+        return result;
+    }
+
+    /**
+     * Returns measurements of the stages, first task in the chain goes first
+     *
+     * @return
+     */
+    public List<StageProfile> getStages() {
+        return stages;
+    }
+
+    /**
+     * Returns the stage that took the longest time
+     *
+     * @return
+     */
+    public StageProfile getSlowestStage() {
+        StageProfile slowest = null;
+        for (StageProfile stage : stages) {
+            if (slowest == null || stage.getWallTime(TimeUnit.NANOSECONDS) > slowest.getWallTime(TimeUnit.NANOSECONDS)) {
+                slowest = stage;
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * Returns time spent processing all the stages
+     *
+     * @param unit the unit
+     * @return
+     */
+    public long getWallTime(TimeUnit unit) {
+        long total = 0;
+        for (StageProfile stage : stages) {
+            total += stage.getWallTime(TimeUnit.NANOSECONDS);
+        }
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Chain of ").append(stages.size()).append(" tasks took ")
+            .append(getWallTime(TimeUnit.MILLISECONDS)).append(" ms");
+        for (StageProfile stage : stages) {
+            sb.append("\n  ").append(stage);
+        }
+        return sb.toString();
+    }
+}
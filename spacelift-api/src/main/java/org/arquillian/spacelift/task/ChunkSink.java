@@ -0,0 +1,36 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+/**
+ * Receives chunks produced by a {@link StreamingTask}
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <T> Type of the chunks
+ */
+public interface ChunkSink<T> {
+
+    /**
+     * Passes a chunk to the next stage. If the next stage is running concurrently and is not able to keep up, it blocks
+     * until there is space for the chunk.
+     *
+     * @param chunk the chunk, must not be {@code null}
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    void emit(T chunk) throws InterruptedException;
+}
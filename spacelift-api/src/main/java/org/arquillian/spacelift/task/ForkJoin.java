@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.ExecutionService;
+
+/**
+ * Executes callables by {@link ExecutionService} and waits for them, while keeping at most given number of them running
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ForkJoin<T> {
+
+    private final ExecutionService service;
+    private final List<Callable<T>> callables;
+    private final BlockingQueue<Integer> finished;
+    private final List<Execution<T>> executions;
+
+    ForkJoin(ExecutionService service, List<Callable<T>> callables) throws ExecutionException {
+        if (service == null) {
+            throw new ExecutionException("Unable to execute tasks in parallel, execution service was not set.");
+        }
+        this.service = service;
+        this.callables = callables;
+        this.finished = new LinkedBlockingQueue<Integer>();
+        this.executions = new ArrayList<Execution<T>>(callables.size());
+    }
+
+    /**
+     * Executes all callables and returns their results in the same order. If any of them fails, the rest is terminated.
+     *
+     * @param parallelism maximal number of callables running at the same time
+     * @return
+     * @throws ExecutionException if any of the callables fails
+     */
+    List<T> all(int parallelism) throws ExecutionException {
+        int submitted = 0;
+        int done = 0;
+        try {
+            while (done < callables.size()) {
+                while (submitted < callables.size() && submitted - done < parallelism) {
+                    submit(submitted++);
+                }
+                // failure is reported as soon as it happens
+                executions.get(take()).await();
+                done++;
+            }
+        } catch (ExecutionException e) {
+            terminateAll();
+            throw e;
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] results = (T[]) new Object[callables.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = executions.get(i).await();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Executes all callables and returns result of the first one that succeeds. The rest is terminated.
+     *
+     * @return
+     * @throws ExecutionException if all the callables fail
+     */
+    T any() throws ExecutionException {
+        for (int i = 0; i < callables.size(); i++) {
+            submit(i);
+        }
+        ExecutionException failure = null;
+        for (int i = 0; i < callables.size(); i++) {
+            try {
+                T result = executions.get(take()).await();
+                terminateAll();
+                return result;
+            } catch (ExecutionException e) {
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            throw new ExecutionException("There were no tasks to execute");
+        }
+        throw failure.prependMessage("All {0} tasks failed, the last failure was", callables.size());
+    }
+
+    private void submit(final int index) throws ExecutionException {
+        final Callable<T> callable = callables.get(index);
+        executions.add(service.execute(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    return callable.call();
+                } finally {
+                    finished.add(index);
+                }
+            }
+        }));
+    }
+
+    private int take() throws ExecutionException {
+        try {
+            return finished.take();
+        } catch (InterruptedException e) {
+            terminateAll();
+            throw new ExecutionException(e, "Interrupted while waiting for parallel tasks");
+        }
+    }
+
+    private void terminateAll() {
+        for (Execution<T> execution : executions) {
+            if (!execution.isFinished()) {
+                try {
+                    execution.terminate();
+                } catch (ExecutionException ignore) {
+                    // termination is best effort
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task that merges results of parallel tasks, such as {@link MapTask} or {@link AllOfTask}, into a single result
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <PART> Type of the partial results
+ * @param <OUT> Type of the merged result
+ */
+public abstract class JoinTask<PART, OUT> extends Task<List<? extends PART>, OUT> {
+
+    /**
+     * Creates task that concatenates collections into a single list
+     *
+     * @return
+     */
+    public static <T> JoinTask<Collection<? extends T>, List<T>> concat() {
+        return Task.withExecutionService(new JoinTask<Collection<? extends T>, List<T>>() {
+            @Override
+            protected List<T> join(List<? extends Collection<? extends T>> parts) {
+                List<T> result = new ArrayList<T>();
+                for (Collection<? extends T> part : parts) {
+                    result.addAll(part);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Creates task that merges maps into a single map. If more maps contain the same key, the value from the latter map
+     * is used.
+     *
+     * @return
+     */
+    public static <K, V> JoinTask<Map<? extends K, ? extends V>, Map<K, V>> merge() {
+        return Task.withExecutionService(new JoinTask<Map<? extends K, ? extends V>, Map<K, V>>() {
+            @Override
+            protected Map<K, V> join(List<? extends Map<? extends K, ? extends V>> parts) {
+                Map<K, V> result = new LinkedHashMap<K, V>();
+                for (Map<? extends K, ? extends V> part : parts) {
+                    result.putAll(part);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Merges the partial results
+     *
+     * @param parts partial results
+     * @return merged result
+     * @throws Exception if merging fails for any reason
+     */
+    protected abstract OUT join(List<? extends PART> parts) throws Exception;
+
+    @Override
+    protected OUT process(List<? extends PART> input) throws Exception {
+        return join(input != null ? input : new ArrayList<PART>());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.arquillian.spacelift.Spacelift;
+
+/**
+ * Task that executes a subtask for every element of its input, in parallel, and returns results in the order of the
+ * elements. At most {@link #parallelism(int)} subtasks run at the same time. If any of them fails, the rest is
+ * terminated and the task fails.
+ *
+ * Elements can be passed to the subtasks one by one or in batches, so tasks that already work with collections, such as
+ * reading files, are executed per batch.
+ *
+ * If the subtask is given as an instance, the instance is shared by all parallel executions and its processing must be
+ * thread safe. If the subtask is given by its type, a new task is created for every execution.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <E> Type of the input elements
+ * @param <OUT> Output of the subtask
+ */
+public class MapTask<E, OUT> extends Task<Iterable<? extends E>, List<OUT>> {
+
+    private Task<?, ? extends OUT> subtask;
+    private Class<? extends Task<?, ? extends OUT>> subtaskType;
+    private int batchSize;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Sets task to be executed for every element
+     *
+     * @param subtask the task
+     * @return
+     */
+    public MapTask<E, OUT> each(Task<? super E, ? extends OUT> subtask) {
+        this.subtask = subtask;
+        this.subtaskType = null;
+        this.batchSize = 0;
+        return this;
+    }
+
+    /**
+     * Sets type of task to be executed for every element
+     *
+     * @param subtaskType the type of the task
+     * @return
+     */
+    public MapTask<E, OUT> each(Class<? extends Task<? super E, ? extends OUT>> subtaskType) {
+        this.subtask = null;
+        this.subtaskType = subtaskType;
+        this.batchSize = 0;
+        return this;
+    }
+
+    /**
+     * Sets task to be executed for every batch of at most {@code batchSize} elements
+     *
+     * @param batchSize number of elements in a batch
+     * @param subtask the task
+     * @return
+     */
+    public MapTask<E, OUT> eachBatch(int batchSize, Task<? super List<E>, ? extends OUT> subtask) {
+        this.subtask = subtask;
+        this.subtaskType = null;
+        this.batchSize = validBatchSize(batchSize);
+        return this;
+    }
+
+    /**
+     * Sets type of task to be executed for every batch of at most {@code batchSize} elements
+     *
+     * @param batchSize number of elements in a batch
+     * @param subtaskType the type of the task
+     * @return
+     */
+    public MapTask<E, OUT> eachBatch(int batchSize, Class<? extends Task<? super List<E>, ? extends OUT>> subtaskType) {
+        this.subtask = null;
+        this.subtaskType = subtaskType;
+        this.batchSize = validBatchSize(batchSize);
+        return this;
+    }
+
+    /**
+     * Sets maximal number of subtasks running at the same time. Default is number of available processors.
+     *
+     * @param parallelism number of subtasks
+     * @return
+     */
+    public MapTask<E, OUT> parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    @Override
+    protected List<OUT> process(Iterable<? extends E> input) throws Exception {
+        if (subtask == null && subtaskType == null) {
+            throw new IllegalStateException("Task to be executed for every element was not set");
+        }
+
+        List<Callable<OUT>> callables = new ArrayList<Callable<OUT>>();
+        if (input != null) {
+            List<E> batch = new ArrayList<E>();
+            for (E element : input) {
+                if (batchSize == 0) {
+                    callables.add(callable(element));
+                    continue;
+                }
+                batch.add(element);
+                if (batch.size() == batchSize) {
+                    callables.add(callable(batch));
+                    batch = new ArrayList<E>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                callables.add(callable(batch));
+            }
+        }
+
+        return new ForkJoin<OUT>(getExecutionService(), callables).all(parallelism);
+    }
+
+    private Callable<OUT> callable(final Object element) {
+        return new Callable<OUT>() {
+            @Override
+            public OUT call() throws Exception {
+                Task<?, ? extends OUT> task = subtask != null ? subtask : newSubtask();
+                return task.runWith(element);
+            }
+        };
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Task<?, ? extends OUT> newSubtask() {
+        return (Task<?, ? extends OUT>) Spacelift.task((Class) subtaskType);
+    }
+
+    private static int validBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+        }
+        return batchSize;
+    }
+}
@@ -1,14 +1,29 @@
 package org.arquillian.spacelift.task;
 
+import java.lang.reflect.Constructor;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * Task factory that creates tasks by their no-arg constructor. The constructor is looked up once, when the first task is
+ * created, and reused afterwards.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <IN> Input of the task
+ * @param <OUT> Output of the task
+ * @param <TASK> {@link Task} that is created by this factory
+ */
 public class NoArgConstructorTaskFactory<IN, OUT, TASK extends Task<? super IN, OUT>> implements TaskFactory<IN, OUT, TASK> {
 
+    private static final TaskFactory.ExecutionServiceInjector INJECTOR = new TaskFactory.ExecutionServiceInjector();
+
     private final Class<TASK> taskDef;
     private final List<String> aliases;
 
+    private volatile Constructor<TASK> constructor;
+
     public NoArgConstructorTaskFactory(Class<TASK> taskDef, String... aliases) {
         this.taskDef = taskDef;
         this.aliases = Arrays.asList(aliases);
@@ -16,8 +31,14 @@ public class NoArgConstructorTaskFactory<IN, OUT, TASK extends Task<? super IN,
 
     @Override
     public TASK create() {
-        TASK task = SecurityActions.newInstance(taskDef);
-        return new TaskFactory.ExecutionServiceInjector().inject(task);
+        Constructor<TASK> current = constructor;
+        if (current == null) {
+            // lookup might happen more than once if tasks are created concurrently, which is harmless
+            current = SecurityActions.noArgConstructor(taskDef);
+            constructor = current;
+        }
+        TASK task = SecurityActions.newInstance(current);
+        return INJECTOR.inject(task);
     }
 
     @Override
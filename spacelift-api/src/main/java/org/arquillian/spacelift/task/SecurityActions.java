@@ -80,12 +80,53 @@ final class SecurityActions {
         final Object obj;
 
         try {
-            Constructor<?> constructor = getConstructor(clazz, argumentTypes);
-            constructor.setAccessible(true);
-            obj = constructor.newInstance(arguments);
+            obj = newInstance(accessibleConstructor(clazz, argumentTypes), arguments);
         } catch (NoSuchMethodException e) {
             throw new IllegalStateException("Unable to find a constructor for implementation class "
                 + getConstructorName(clazz.getName(), argumentTypes));
+        }
+
+        // Cast
+        try {
+            return expectedType.cast(obj);
+        } catch (final ClassCastException cce) {
+            // Reconstruct so we get some useful information
+            throw new ClassCastException("Unable to instantiate " + expectedType.getName()
+                + " instance. Constructed object was type of " + obj.getClass().getName()
+                + ", which is not compatible.");
+        }
+    }
+
+    /**
+     * Obtains no-arg constructor of the class and makes it accessible, so it can be reused for instantiation
+     *
+     * @param clazz Class to be instantiated
+     * @throws IllegalStateException if there is no such constructor
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Constructor<T> noArgConstructor(Class<T> clazz) throws IllegalStateException {
+        try {
+            return (Constructor<T>) accessibleConstructor(clazz, new Class<?>[0]);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Unable to find a constructor for implementation class "
+                + getConstructorName(clazz.getName(), new Class<?>[0]));
+        }
+    }
+
+    /**
+     * Creates a new instance using constructor obtained before
+     *
+     * @param constructor Constructor
+     * @param arguments Constructor arguments
+     * @throws RuntimeException if any exceptions during creation
+     * @return
+     */
+    static <T> T newInstance(Constructor<T> constructor, Object... arguments) throws IllegalStateException,
+        RuntimeException {
+        Class<?> clazz = constructor.getDeclaringClass();
+        try {
+            return constructor.newInstance(arguments);
         } catch (IllegalArgumentException e) {
             throw new IllegalStateException("Unable to instantiate a " + clazz.getName(), e);
         } catch (InstantiationException e) {
@@ -96,20 +137,17 @@ final class SecurityActions {
         } catch (InvocationTargetException e) {
             throw new RuntimeException(
                 String.format("Unable to instantiate task via %s: %s",
-                    getConstructorName(clazz.getName(), argumentTypes),
+                    getConstructorName(clazz.getName(), constructor.getParameterTypes()),
                     e.getCause()), // this provides the message of the ITE cause, which is also important!
                 e.getCause()); // this provides stack trace of the ITE cause
         }
+    }
 
-        // Cast
-        try {
-            return expectedType.cast(obj);
-        } catch (final ClassCastException cce) {
-            // Reconstruct so we get some useful information
-            throw new ClassCastException("Unable to instantiate " + expectedType.getName()
-                + " instance. Constructed object was type of " + obj.getClass().getName()
-                + ", which is not compatible.");
-        }
+    private static Constructor<?> accessibleConstructor(final Class<?> clazz, final Class<?>... argumentTypes)
+        throws NoSuchMethodException {
+        Constructor<?> constructor = getConstructor(clazz, argumentTypes);
+        constructor.setAccessible(true);
+        return constructor;
     }
 
     /**
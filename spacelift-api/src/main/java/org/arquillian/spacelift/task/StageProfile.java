@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measurement of a single task in a chain of tasks
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class StageProfile {
+
+    private final Class<?> taskType;
+    private final long wallTimeNanos;
+    private final long allocatedBytes;
+
+    StageProfile(Class<?> taskType, long wallTimeNanos, long allocatedBytes) {
+        this.taskType = taskType;
+        this.wallTimeNanos = wallTimeNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns type of the task
+     *
+     * @return
+     */
+    public Class<?> getTaskType() {
+        return taskType;
+    }
+
+    /**
+     * Returns time spent processing the task
+     *
+     * @param unit the unit
+     * @return
+     */
+    public long getWallTime(TimeUnit unit) {
+        return unit.convert(wallTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns number of bytes allocated by the thread while processing the task, or {@code -1} if JVM is not able to
+     * measure allocation
+     *
+     * @return
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return taskType.getSimpleName() + ": " + getWallTime(TimeUnit.MILLISECONDS) + " ms"
+            + (allocatedBytes >= 0 ? ", " + allocatedBytes + " bytes allocated" : "");
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.arquillian.spacelift.execution.ExecutionException;
+
+/**
+ * Runs consecutive {@link StreamingTask}s concurrently. Every stage but the last one runs in a dedicated thread, the
+ * last one runs in current thread and passes its chunks to a sink. Stages are connected by bounded queues, so at most
+ * {@link StreamingTask#capacity(int)} chunks per stage are held in memory.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class StreamingPipeline {
+
+    private static final Object END = new Object();
+    private static final long POLL_MILLIS = 100;
+
+    private final StreamingTask<?, ?>[] stages;
+    private final AtomicReference<ExecutionException> failure;
+    private final StageProfile[] profiles;
+
+    StreamingPipeline(StreamingTask<?, ?>[] stages, boolean profile) {
+        this.stages = stages;
+        this.failure = new AtomicReference<ExecutionException>();
+        this.profiles = profile ? new StageProfile[stages.length] : null;
+    }
+
+    /**
+     * Runs the pipeline. Every stage but the last one gets a dedicated producer thread, so the stages never wait for a
+     * thread of an execution service that might be occupied by the pipeline itself. Chunks of the last stage are passed
+     * to {@code output} as soon as they are emitted.
+     *
+     * @param input input of the first stage
+     * @param output sink for chunks produced by the last stage
+     * @throws ExecutionException if any of the stages fails
+     */
+    void run(Object input, ChunkSink<Object> output) throws ExecutionException {
+        List<Thread> producers = new ArrayList<Thread>();
+
+        Iterable<?> source = input != null ? (Iterable<?>) input : Collections.emptyList();
+        for (int i = 0; i < stages.length - 1; i++) {
+            final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(stages[i].getCapacity());
+            final int index = i;
+            final Iterable<?> stageSource = source;
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runStage(index, stageSource, new QueueSink(queue));
+                }
+            }, "spacelift-pipeline-" + stages[i].getClass().getSimpleName());
+            producer.setDaemon(true);
+            producers.add(producer);
+            source = new QueueSource(queue);
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+
+        runStage(stages.length - 1, source, output);
+
+        try {
+            for (Thread producer : producers) {
+                producer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // producers see the failure and unwind on their own
+            failure.compareAndSet(null, new ExecutionException(e, "Interrupted while waiting for pipeline stages"));
+        }
+        checkFailure();
+    }
+
+    /**
+     * Returns measurements of the stages, after the pipeline has finished
+     *
+     * @return
+     */
+    StageProfile[] getProfiles() {
+        return profiles;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void runStage(int index, Iterable<?> source, ChunkSink sink) {
+        StreamingTask stage = stages[index];
+        long allocated = profiles != null ? AllocationCounter.allocatedBytes() : 0;
+        long start = profiles != null ? System.nanoTime() : 0;
+        try {
+            for (Object chunk : source) {
+                if (failure.get() != null) {
+                    throw new Aborted();
+                }
+                stage.process(chunk, sink);
+            }
+            stage.finish(sink);
+            if (sink instanceof QueueSink) {
+                ((QueueSink) sink).close();
+            }
+        } catch (Aborted e) {
+            return;
+        } catch (Exception e) {
+            failure.compareAndSet(null,
+                new ExecutionException(e, "Unable to execute task {0}", stage.getClass().getSimpleName()));
+            return;
+        } catch (Error e) {
+            // a producer thread would die silently, consumers must not wait for it
+            failure.compareAndSet(null,
+                new ExecutionException(e, "Unable to execute task {0}", stage.getClass().getSimpleName()));
+            throw e;
+        }
+        if (profiles != null) {
+            profiles[index] = new StageProfile(stage.getClass(), System.nanoTime() - start,
+                allocated >= 0 ? AllocationCounter.allocatedBytes() - allocated : -1);
+        }
+    }
+
+    private void checkFailure() throws ExecutionException {
+        ExecutionException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Thrown to unwind a stage if another stage has failed
+     */
+    private static class Aborted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private class QueueSink implements ChunkSink<Object> {
+        private final BlockingQueue<Object> queue;
+
+        QueueSink(BlockingQueue<Object> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void emit(Object chunk) throws InterruptedException {
+            put(chunk);
+        }
+
+        void close() throws InterruptedException {
+            put(END);
+        }
+
+        private void put(Object chunk) throws InterruptedException {
+            while (!queue.offer(chunk, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new Aborted();
+                }
+            }
+        }
+    }
+
+    private class QueueSource implements Iterable<Object> {
+        private final BlockingQueue<Object> queue;
+
+        QueueSource(BlockingQueue<Object> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new Iterator<Object>() {
+                private Object next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        next = take();
+                    }
+                    return next != END;
+                }
+
+                @Override
+                public Object next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Object current = next;
+                    next = null;
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        private Object take() {
+            try {
+                Object chunk;
+                while ((chunk = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    if (failure.get() != null) {
+                        throw new Aborted();
+                    }
+                }
+                return chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new ExecutionException(e, "Interrupted while waiting for a chunk"));
+                throw new Aborted();
+            }
+        }
+    }
+}
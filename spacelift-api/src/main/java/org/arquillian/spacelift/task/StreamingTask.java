@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Task that processes its input as a stream of chunks and produces a stream of chunks.
+ *
+ * When a streaming task is chained directly with another streaming task, the stages run concurrently and pass chunks
+ * through a bounded buffer, so the next stage starts working as soon as the first chunk is available. Chained with an
+ * ordinary {@link Task}, the streaming task consumes collection produced by previous task and returns all chunks it
+ * produced as a list.
+ *
+ * Chunks of the last streaming stage of a chain are collected as the result of the chain, so the last stage should
+ * consume the stream and emit only a summary of it, such as files it has written.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <IN> Type of input chunks
+ * @param <OUT> Type of output chunks
+ */
+public abstract class StreamingTask<IN, OUT> extends Task<Iterable<? extends IN>, List<OUT>> {
+
+    /**
+     * Default number of chunks that can wait for the next stage
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * Sets number of chunks that can wait for the next stage, before this stage is blocked
+     *
+     * @param capacity number of chunks
+     * @return
+     */
+    public StreamingTask<IN, OUT> capacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Processes a single chunk of the input. It can produce any number of chunks.
+     *
+     * @param chunk the chunk
+     * @param output sink for produced chunks
+     * @throws Exception if processing fails for any reason
+     */
+    protected abstract void process(IN chunk, ChunkSink<OUT> output) throws Exception;
+
+    /**
+     * Called after the last chunk of the input was processed. Stages that aggregate chunks should emit the rest here.
+     *
+     * @param output sink for produced chunks
+     * @throws Exception if processing fails for any reason
+     */
+    protected void finish(ChunkSink<OUT> output) throws Exception {
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    protected final List<OUT> process(Iterable<? extends IN> input) throws Exception {
+        final List<OUT> result = new ArrayList<OUT>();
+        ChunkSink<OUT> output = new ChunkSink<OUT>() {
+            @Override
+            public void emit(OUT chunk) {
+                result.add(chunk);
+            }
+        };
+
+        if (input != null) {
+            for (IN chunk : input) {
+                process(chunk, output);
+            }
+        }
+        finish(output);
+        return result;
+    }
+}
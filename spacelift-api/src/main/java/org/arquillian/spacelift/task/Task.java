@@ -1,6 +1,8 @@
 package org.arquillian.spacelift.task;
 
-import java.util.concurrent.Callable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.arquillian.spacelift.Spacelift;
 import org.arquillian.spacelift.execution.Execution;
@@ -35,6 +37,20 @@ public abstract class Task<IN, OUT> {
         return next;
     }
 
+    /**
+     * Allows to connect current task with next task instance, given the output of this task matches input of next task.
+     * This is useful for tasks created by {@link #allOf(List)}, {@link #anyOf(List)} or {@link #map()}.
+     *
+     * @param nextTask Task to be executed right after this task is finished
+     * @return
+     */
+    public <OUT_2, TASK_2 extends Task<? super OUT, OUT_2>> TASK_2 then(TASK_2 nextTask) {
+
+        nextTask.setPreviousTask(this);
+
+        return nextTask;
+    }
+
     /**
      * Allows to connect current task with next task, given the output of this task matches input of next task
      *
@@ -52,6 +68,81 @@ public abstract class Task<IN, OUT> {
     }
 
 
+    /**
+     * Creates a task that executes {@code branches} in parallel, passing each of them the same input, and returns all
+     * their results. Passing generic tasks creates a generic array, which causes an unchecked warning at the call site,
+     * {@link #allOf(List)} can be used instead.
+     *
+     * @param branches Tasks or chains of tasks to be executed
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <IN, OUT> AllOfTask<IN, OUT> allOf(Task<? super IN, ? extends OUT>... branches) {
+        return Task.<IN, OUT> allOf(Arrays.asList(branches));
+    }
+
+    /**
+     * Creates a task that executes {@code branches} in parallel, passing each of them the same input, and returns all
+     * their results
+     *
+     * @param branches Tasks or chains of tasks to be executed
+     * @return
+     */
+    public static <IN, OUT> AllOfTask<IN, OUT> allOf(List<? extends Task<? super IN, ? extends OUT>> branches) {
+        return withExecutionService(new AllOfTask<IN, OUT>()).branches(branches);
+    }
+
+    /**
+     * Creates a task that executes {@code branches} in parallel, passing each of them the same input, and returns the
+     * result of the one that succeeds first. Passing generic tasks creates a generic array, which causes an unchecked
+     * warning at the call site, {@link #anyOf(List)} can be used instead.
+     *
+     * @param branches Tasks or chains of tasks to be executed
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <IN, OUT> AnyOfTask<IN, OUT> anyOf(Task<? super IN, ? extends OUT>... branches) {
+        return Task.<IN, OUT> anyOf(Arrays.asList(branches));
+    }
+
+    /**
+     * Creates a task that executes {@code branches} in parallel, passing each of them the same input, and returns the
+     * result of the one that succeeds first
+     *
+     * @param branches Tasks or chains of tasks to be executed
+     * @return
+     */
+    public static <IN, OUT> AnyOfTask<IN, OUT> anyOf(List<? extends Task<? super IN, ? extends OUT>> branches) {
+        return withExecutionService(new AnyOfTask<IN, OUT>()).branches(branches);
+    }
+
+    /**
+     * Creates a task that executes a subtask for every element of its input in parallel. Subtask is set by
+     * {@link MapTask#each(Task)} or {@link MapTask#eachBatch(int, Task)}, results can be merged by {@link JoinTask}.
+     *
+     * @return
+     */
+    public static <E, OUT> MapTask<E, OUT> map() {
+        return withExecutionService(new MapTask<E, OUT>());
+    }
+
+    /**
+     * Creates a task like {@link #map()}, which executes its subtasks by {@code executionService} instead of the default
+     * one. Tasks can pass their own {@link #getExecutionService()}, so parallel work they split into subtasks is executed
+     * by the execution service they were created with.
+     *
+     * @param executionService Execution service to be used, the default one is used if {@code null}
+     * @return
+     */
+    public static <E, OUT> MapTask<E, OUT> map(ExecutionService executionService) {
+        if (executionService == null) {
+            return map();
+        }
+        MapTask<E, OUT> task = new MapTask<E, OUT>();
+        task.setExecutionService(executionService);
+        return task;
+    }
+
     /**
      * Asynchronously executes current chain of tasks.
      *
@@ -64,11 +155,43 @@ public abstract class Task<IN, OUT> {
             throw new ExecutionException("Unable to execute a task, execution service was not set.");
         }
 
-        return getExecutionService().execute(new Callable<OUT>() {
+        return getExecutionService().execute(new TaskCallable<OUT>() {
             @Override
             public OUT call() throws Exception {
                 return Task.this.run();
             }
+
+            @Override
+            public Class<?> getTaskType() {
+                return Task.this.getClass();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously executes current chain of tasks and measures wall time and allocation of each task in the chain.
+     *
+     * @return Execution object that allows later retrieved result of the task together with the measurements
+     * @throws ExecutionException
+     */
+    public Execution<ChainProfile<OUT>> profile() throws ExecutionException {
+
+        if (getExecutionService() == null) {
+            throw new ExecutionException("Unable to execute a task, execution service was not set.");
+        }
+
+        return getExecutionService().execute(new TaskCallable<ChainProfile<OUT>>() {
+            @Override
+            public ChainProfile<OUT> call() throws Exception {
+                List<StageProfile> stages = new ArrayList<StageProfile>();
+                OUT result = Task.this.runChain(stages, null);
+                return new ChainProfile<OUT>(result, stages);
+            }
+
+            @Override
+            public Class<?> getTaskType() {
+                return Task.this.getClass();
+            }
         });
     }
 
@@ -88,17 +211,91 @@ public abstract class Task<IN, OUT> {
      * @throws ExecutionException
      */
     protected OUT run() throws ExecutionException {
-        IN in = null;
+        return runChain(null, null);
+    }
+
+    /**
+     * Executes the chain synchronously, passing {@code input} to the first task of the chain
+     *
+     * @param input Input of the first task
+     * @return
+     * @throws ExecutionException
+     */
+    OUT runWith(Object input) throws ExecutionException {
+        return runChain(null, input);
+    }
+
+    /**
+     * Sets default execution service to a task that was not created by {@link Spacelift}
+     *
+     * @param task the task
+     * @return
+     */
+    static <TASK extends Task<?, ?>> TASK withExecutionService(TASK task) {
+        task.setExecutionService(Spacelift.service());
+        return task;
+    }
 
-        if (previous != null) {
-            in = previous.run();
+    /**
+     * Executes the chain iteratively, from the first task to this one, so long chains do not build deep call stacks.
+     * Consecutive {@link StreamingTask}s are executed concurrently by {@link StreamingPipeline}.
+     *
+     * @param profile list to add measurements of the tasks to, or {@code null} if tasks should not be measured
+     * @param input input of the first task
+     * @return
+     * @throws ExecutionException
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private OUT runChain(List<StageProfile> profile, Object input) throws ExecutionException {
+        int length = 0;
+        for (Task<?, ?> stage = this; stage != null; stage = stage.previous) {
+            length++;
+        }
+        Task[] stages = new Task[length];
+        for (Task<?, ?> stage = this; stage != null; stage = stage.previous) {
+            stages[--length] = stage;
         }
 
-        try {
-            return process(in);
-        } catch (Exception e) {
-            throw new ExecutionException(e, "Unable to execute task {0}", this.getClass().getSimpleName());
+        Object data = input;
+        for (int i = 0; i < stages.length; i++) {
+            // consecutive streaming tasks overlap
+            int streaming = i;
+            while (streaming < stages.length && stages[streaming] instanceof StreamingTask) {
+                streaming++;
+            }
+            if (streaming - i > 1) {
+                StreamingPipeline pipeline = new StreamingPipeline(Arrays.copyOfRange(stages, i, streaming,
+                    StreamingTask[].class), profile != null);
+                final List<Object> chunks = new ArrayList<Object>();
+                pipeline.run(data, new ChunkSink<Object>() {
+                    @Override
+                    public void emit(Object chunk) {
+                        chunks.add(chunk);
+                    }
+                });
+                data = chunks;
+                if (profile != null) {
+                    profile.addAll(Arrays.asList(pipeline.getProfiles()));
+                }
+                i = streaming - 1;
+                continue;
+            }
+
+            Task stage = stages[i];
+            long allocated = profile != null ? AllocationCounter.allocatedBytes() : 0;
+            long start = profile != null ? System.nanoTime() : 0;
+            try {
+                data = stage.process(data);
+            } catch (Exception e) {
+                throw new ExecutionException(e, "Unable to execute task {0}", stage.getClass().getSimpleName());
+            }
+            if (profile != null) {
+                long wallTime = System.nanoTime() - start;
+                profile.add(new StageProfile(stage.getClass(), wallTime, allocated >= 0 ? AllocationCounter
+                    .allocatedBytes() - allocated : -1));
+            }
         }
+        return (OUT) data;
     }
 
     /**
@@ -0,0 +1,39 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import java.util.concurrent.Callable;
+
+import org.arquillian.spacelift.execution.ExecutionService;
+
+/**
+ * A {@link Callable} that executes a chain of tasks. It is passed to {@link ExecutionService}, so it can tell which task is
+ * going to be executed, for instance to limit concurrency of a particular task type.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <OUT> Output type of the task
+ */
+public interface TaskCallable<OUT> extends Callable<OUT> {
+
+    /**
+     * Returns type of the last task in the chain
+     *
+     * @return
+     */
+    Class<?> getTaskType();
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+import org.arquillian.spacelift.Invokable.InvocationException;
+import org.arquillian.spacelift.execution.ExecutionService;
+import org.arquillian.spacelift.task.TestExecutionService;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ImplementationLoaderTest {
+
+    private static final String PROPERTY = "spacelift.test.execution.service";
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(PROPERTY);
+    }
+
+    @Test
+    public void implementationFromServices() {
+        assertThat(ImplementationLoader.implementationOf(ExecutionService.class, PROPERTY),
+            instanceOf(TestExecutionService.class));
+    }
+
+    @Test
+    public void implementationFromProperty() {
+        System.setProperty(PROPERTY, PropertyExecutionService.class.getName());
+        assertThat(ImplementationLoader.implementationOf(ExecutionService.class, PROPERTY),
+            instanceOf(PropertyExecutionService.class));
+    }
+
+    @Test(expected = InvocationException.class)
+    public void implementationOfWrongType() {
+        System.setProperty(PROPERTY, String.class.getName());
+        ImplementationLoader.implementationOf(ExecutionService.class, PROPERTY);
+    }
+
+    public static class PropertyExecutionService extends TestExecutionService {
+    }
+}
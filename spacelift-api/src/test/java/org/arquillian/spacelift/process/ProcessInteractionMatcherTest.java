@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.process;
+
+import static org.arquillian.spacelift.process.ProcessInteractionMatcher.ERROR;
+import static org.arquillian.spacelift.process.ProcessInteractionMatcher.OUTPUT;
+import static org.arquillian.spacelift.process.ProcessInteractionMatcher.REPLY;
+import static org.arquillian.spacelift.process.ProcessInteractionMatcher.TERMINATE;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ProcessInteractionMatcherTest {
+
+    @Test
+    public void literalPrefix() {
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile("Password:.*")), equalTo("Password:"));
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile("^ERROR \\d+")), equalTo("ERROR "));
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile("abc?")), equalTo("ab"));
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile("ab+")), equalTo("ab"));
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile("yes|no")), equalTo(""));
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile(".*done")), equalTo(""));
+        assertThat(ProcessInteractionMatcher.literalPrefix(Pattern.compile("done", Pattern.CASE_INSENSITIVE)), equalTo(""));
+    }
+
+    @Test
+    public void firstReplyWins() {
+        ProcessInteraction interaction = new ProcessInteractionBuilder()
+            .when("Continue\\?.*").replyWith("first")
+            .when(".*\\?.*").replyWith("second")
+            .build();
+
+        ProcessInteractionMatcher.Evaluator evaluator = ProcessInteractionMatcher.of(interaction).evaluator();
+        assertThat(evaluator.evaluate("Continue? [y/n]", REPLY), equalTo(REPLY));
+        assertThat(evaluator.reply(), equalTo("first"));
+        assertThat(evaluator.evaluate("Really? [y/n]", REPLY), equalTo(REPLY));
+        assertThat(evaluator.reply(), equalTo("second"));
+    }
+
+    @Test
+    public void combinedActions() {
+        ProcessInteraction interaction = new ProcessInteractionBuilder()
+            .when("ERROR.*").printToErr()
+            .when("ERROR.*").terminate()
+            .when(".*").printToOut()
+            .build();
+
+        ProcessInteractionMatcher.Evaluator evaluator = ProcessInteractionMatcher.of(interaction).evaluator();
+        assertThat(evaluator.evaluate("ERROR failed", TERMINATE | REPLY), equalTo(TERMINATE));
+        assertThat(evaluator.evaluate("ERROR failed", OUTPUT | ERROR), equalTo(OUTPUT | ERROR));
+        assertThat(evaluator.evaluate("all good", OUTPUT | ERROR), equalTo(OUTPUT));
+        assertThat(evaluator.evaluate("all good", TERMINATE | REPLY), equalTo(0));
+        assertThat(evaluator.reply(), nullValue());
+    }
+
+    @Test
+    public void noMatch() {
+        ProcessInteraction interaction = new ProcessInteractionBuilder()
+            .when("Password:").replyWith("secret")
+            .build();
+
+        ProcessInteractionMatcher.Evaluator evaluator = ProcessInteractionMatcher.of(interaction).evaluator();
+        assertThat(evaluator.evaluate("", REPLY), equalTo(0));
+        assertThat(evaluator.evaluate("Pass", REPLY), equalTo(0));
+        assertThat(evaluator.evaluate("Password: ", REPLY), equalTo(0));
+        assertThat(evaluator.evaluate("Password:", REPLY), equalTo(REPLY));
+    }
+
+    @Test
+    public void matcherIsPrecompiled() {
+        ProcessInteraction interaction = new ProcessInteractionBuilder().when(".*").printToOut().build();
+        assertThat(ProcessInteractionMatcher.of(interaction), sameInstance(ProcessInteractionMatcher.of(interaction)));
+    }
+}
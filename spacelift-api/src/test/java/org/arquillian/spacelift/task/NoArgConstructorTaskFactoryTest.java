@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class NoArgConstructorTaskFactoryTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void createTasksWithPrivateConstructor() {
+        NoArgConstructorTaskFactory<Object, Object, PrivateTask> factory = new NoArgConstructorTaskFactory<Object, Object, PrivateTask>(
+            PrivateTask.class);
+
+        PrivateTask first = factory.create();
+        PrivateTask second = factory.create();
+
+        assertThat(first, notNullValue());
+        assertThat(second, not(sameInstance(first)));
+    }
+
+    @Test
+    public void missingConstructor() {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("MissingConstructorTask()");
+
+        new NoArgConstructorTaskFactory<Object, Object, MissingConstructorTask>(MissingConstructorTask.class).create();
+    }
+
+    @Test
+    public void failingConstructor() {
+        exception.expect(RuntimeException.class);
+        exception.expectMessage("constructor failed");
+
+        new NoArgConstructorTaskFactory<Object, Object, FailingTask>(FailingTask.class).create();
+    }
+
+    static class PrivateTask extends Task<Object, Object> {
+        private PrivateTask() {
+        }
+
+        @Override
+        protected Object process(Object input) throws Exception {
+            return input;
+        }
+    }
+
+    static class MissingConstructorTask extends Task<Object, Object> {
+        MissingConstructorTask(String value) {
+        }
+
+        @Override
+        protected Object process(Object input) throws Exception {
+            return input;
+        }
+    }
+
+    static class FailingTask extends Task<Object, Object> {
+        FailingTask() {
+            throw new IllegalArgumentException("constructor failed");
+        }
+
+        @Override
+        protected Object process(Object input) throws Exception {
+            return input;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.arquillian.spacelift.task;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.ExecutionService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ParallelTaskTest {
+
+    public static class Numbers extends Task<Object, List<Integer>> {
+        @Override
+        protected List<Integer> process(Object input) throws Exception {
+            return Arrays.asList(1, 2, 3, 4, 5, 6, 7);
+        }
+    }
+
+    public static class Square extends Task<Integer, Integer> {
+        @Override
+        protected Integer process(Integer input) throws Exception {
+            return input * input;
+        }
+    }
+
+    public static class Sleep extends Task<Integer, Integer> {
+        private long millis;
+
+        public Sleep millis(long millis) {
+            this.millis = millis;
+            return this;
+        }
+
+        @Override
+        protected Integer process(Integer input) throws Exception {
+            Thread.sleep(millis);
+            return input + (int) millis;
+        }
+    }
+
+    public static class Fail extends Task<Integer, Integer> {
+        @Override
+        protected Integer process(Integer input) throws Exception {
+            throw new IllegalStateException("failing branch");
+        }
+    }
+
+    public static class Squares extends Task<List<Integer>, Map<Integer, Integer>> {
+        @Override
+        protected Map<Integer, Integer> process(List<Integer> input) throws Exception {
+            Map<Integer, Integer> squares = new HashMap<Integer, Integer>();
+            for (Integer i : input) {
+                squares.put(i, i * i);
+            }
+            return squares;
+        }
+    }
+
+    public static class Concurrency extends Task<Integer, Integer> {
+        static final AtomicInteger running = new AtomicInteger();
+        static final AtomicInteger max = new AtomicInteger();
+
+        @Override
+        protected Integer process(Integer input) throws Exception {
+            int current = running.incrementAndGet();
+            synchronized (max) {
+                max.set(Math.max(max.get(), current));
+            }
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return input;
+        }
+    }
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void allOf() {
+        List<Task<Integer, Integer>> branches = new ArrayList<Task<Integer, Integer>>();
+        branches.add(Spacelift.task(Square.class));
+        branches.add(Spacelift.task(Square.class).then(Square.class));
+
+        List<Integer> result = Spacelift.task(3, Square.class)
+            .then(Task.<Integer, Integer> allOf(branches))
+            .execute().await();
+
+        assertThat(result, is(Arrays.asList(81, 6561)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void allOfFails() {
+        exception.expect(ExecutionException.class);
+        exception.expectMessage("AllOfTask");
+
+        Spacelift.task(3, Square.class)
+            .then(Task.<Integer, Integer> allOf(Spacelift.task(Square.class), Spacelift.task(Fail.class)))
+            .execute().await();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void anyOf() {
+        Integer result = Spacelift.task(1, Square.class)
+            .then(Task.<Integer, Integer> anyOf(Spacelift.task(Sleep.class).millis(5000), Spacelift.task(Fail.class),
+                Spacelift.task(Sleep.class).millis(10)))
+            .execute().await();
+
+        assertThat(result, is(11));
+    }
+
+    @Test
+    public void map() {
+        List<Integer> result = Spacelift.task(Numbers.class)
+            .then(Task.<Integer, Integer> map().each(Square.class))
+            .execute().await();
+
+        assertThat(result, is(Arrays.asList(1, 4, 9, 16, 25, 36, 49)));
+    }
+
+    @Test
+    public void mapWithBoundedParallelism() {
+        Concurrency.max.set(0);
+
+        List<Integer> result = Spacelift.task(Numbers.class)
+            .then(Task.<Integer, Integer> map().each(new Concurrency()).parallelism(2))
+            .execute().await();
+
+        assertThat(result, is(Arrays.asList(1, 2, 3, 4, 5, 6, 7)));
+        assertThat(Concurrency.max.get() <= 2, is(true));
+    }
+
+    @Test
+    public void mapWithExecutionService() {
+        final AtomicInteger executed = new AtomicInteger();
+        ExecutionService service = new TestExecutionService() {
+            @Override
+            public <T> Execution<T> execute(Callable<T> task) throws ExecutionException {
+                executed.incrementAndGet();
+                return super.execute(task);
+            }
+        };
+
+        List<Integer> result = Spacelift.task(Numbers.class)
+            .then(Task.<Integer, Integer> map(service).each(Square.class))
+            .execute().await();
+
+        assertThat(result, is(Arrays.asList(1, 4, 9, 16, 25, 36, 49)));
+        // the chain itself and a subtask for every element
+        assertThat(executed.get(), is(8));
+    }
+
+    @Test
+    public void mapBatchesAndJoin() {
+        Map<Integer, Integer> result = Spacelift.task(Numbers.class)
+            .then(Task.<Integer, Map<Integer, Integer>> map().eachBatch(3, Squares.class))
+            .then(JoinTask.<Integer, Integer> merge())
+            .execute().await();
+
+        assertThat(result.size(), is(7));
+        assertThat(result.get(7), is(49));
+    }
+
+    @Test
+    public void joinCollections() {
+        List<Integer> result = Spacelift.task(Numbers.class)
+            .then(Task.<Integer, Collection<Integer>> map().eachBatch(2, new Task<List<Integer>, Collection<Integer>>() {
+                @Override
+                protected Collection<Integer> process(List<Integer> input) throws Exception {
+                    return input;
+                }
+            }))
+            .then(JoinTask.<Integer> concat())
+            .execute().await();
+
+        assertThat(result, is(Arrays.asList(1, 2, 3, 4, 5, 6, 7)));
+    }
+}
@@ -0,0 +1,154 @@
+package org.arquillian.spacelift.task;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class StreamingTaskTest {
+
+    static volatile CountDownLatch firstChunkConsumed;
+
+    public static class Numbers extends Task<Object, List<Integer>> {
+        @Override
+        protected List<Integer> process(Object input) throws Exception {
+            return Arrays.asList(1, 2, 3, 4, 5);
+        }
+    }
+
+    public static class Repeat extends StreamingTask<Integer, Integer> {
+        private boolean waitForConsumer;
+
+        public Repeat waitForConsumer() {
+            this.waitForConsumer = true;
+            return this;
+        }
+
+        @Override
+        protected void process(Integer chunk, ChunkSink<Integer> output) throws Exception {
+            output.emit(chunk);
+            output.emit(chunk);
+            // next stage must get the chunk while this one is still running
+            if (waitForConsumer && !firstChunkConsumed.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Next stage did not start");
+            }
+        }
+    }
+
+    public static class Sum extends StreamingTask<Integer, Integer> {
+        private int sum;
+
+        @Override
+        protected void process(Integer chunk, ChunkSink<Integer> output) throws Exception {
+            firstChunkConsumed.countDown();
+            if (chunk < 0) {
+                throw new IllegalArgumentException("negative chunk");
+            }
+            sum += chunk;
+        }
+
+        @Override
+        protected void finish(ChunkSink<Integer> output) throws Exception {
+            output.emit(sum);
+        }
+    }
+
+    public static class Negate extends StreamingTask<Integer, Integer> {
+        @Override
+        protected void process(Integer chunk, ChunkSink<Integer> output) throws Exception {
+            output.emit(-chunk);
+        }
+    }
+
+    /**
+     * Runs tasks in the calling thread, like a saturated pool with caller-runs policy does
+     */
+    public static class InlineExecutionService extends TestExecutionService {
+        @Override
+        public <T> Execution<T> execute(Callable<T> task) throws ExecutionException {
+            FutureTask<T> future = new FutureTask<T>(task);
+            future.run();
+            return new TestExecution<T>(task, future);
+        }
+    }
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void stagesOverlap() {
+        firstChunkConsumed = new CountDownLatch(1);
+
+        List<Integer> result = Spacelift.task(Numbers.class)
+            .then(Repeat.class).waitForConsumer()
+            .then(Sum.class)
+            .execute().await();
+
+        assertThat(result, is(Arrays.asList(30)));
+    }
+
+    @Test
+    public void singleStreamingStage() {
+        firstChunkConsumed = new CountDownLatch(1);
+
+        List<Integer> result = Spacelift.task(Numbers.class)
+            .then(Repeat.class)
+            .execute().await();
+
+        assertThat(result.size(), is(10));
+    }
+
+    @Test
+    public void stageFailureStopsPipeline() {
+        firstChunkConsumed = new CountDownLatch(1);
+
+        exception.expect(ExecutionException.class);
+        exception.expectMessage("Sum");
+
+        Spacelift.task(Numbers.class)
+            .then(Negate.class)
+            .then(Repeat.class)
+            .then(Sum.class)
+            .execute().await();
+    }
+
+    @Test
+    public void profileStages() {
+        firstChunkConsumed = new CountDownLatch(1);
+
+        ChainProfile<List<Integer>> profile = Spacelift.task(Numbers.class)
+            .then(Repeat.class)
+            .then(Sum.class)
+            .profile().await();
+
+        assertThat(profile.getResult(), is(Arrays.asList(30)));
+        assertThat(profile.getStages().size(), is(3));
+        assertThat(profile.getStages().get(2).getTaskType(), equalTo((Object) Sum.class));
+    }
+
+    @Test(timeout = 10000)
+    public void stagesDoNotWaitForExecutionService() {
+        firstChunkConsumed = new CountDownLatch(1);
+        InlineExecutionService inline = new InlineExecutionService();
+
+        Repeat repeat = Spacelift.task(Numbers.class).then(Repeat.class);
+        repeat.capacity(1).setExecutionService(inline);
+        Sum sum = repeat.then(Sum.class);
+        sum.setExecutionService(inline);
+
+        assertThat(sum.execute().await(), is(Arrays.asList(30)));
+    }
+}
@@ -1,5 +1,6 @@
 package org.arquillian.spacelift.task;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
@@ -74,6 +75,13 @@ public class TaskChainTest {
 
     }
 
+    public static class Increment extends Task<Integer, Integer> {
+        @Override
+        protected Integer process(Integer input) throws Exception {
+            return input + 1;
+        }
+    }
+
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
@@ -136,4 +144,32 @@ public class TaskChainTest {
 
         assertThat(result, notNullValue());
     }
+
+    @Test
+    public void longChainDoesNotOverflowStack() {
+
+        Increment chain = Spacelift.task(0, Increment.class);
+        for (int i = 1; i < 100000; i++) {
+            chain = chain.then(Increment.class);
+        }
+
+        assertThat(chain.execute().await(), equalTo(100000));
+    }
+
+    @Test
+    public void profileChain() {
+
+        ChainProfile<String> profile = Spacelift.task(CreateWriterTask.class)
+            .then(DataSampler.class)
+            .generateRandomData(123)
+            .then(MyStringReader.class)
+            .profile().await();
+
+        assertThat(profile.getResult(), notNullValue());
+        // inject task for initial input is not used here
+        assertThat(profile.getStages().size(), equalTo(3));
+        assertThat(profile.getStages().get(0).getTaskType(), equalTo((Object) CreateWriterTask.class));
+        assertThat(profile.getStages().get(2).getTaskType(), equalTo((Object) MyStringReader.class));
+        assertThat(profile.getSlowestStage(), notNullValue());
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+
+/**
+ * Generates benchmark fixtures locally, so benchmarks run without network access
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+final class Fixtures {
+
+    private static final String[] WORDS = { "spacelift", "arquillian", "version", "1.0.0", "foo", "bar", "baz", "task",
+        "process", "archive" };
+
+    private Fixtures() {
+        throw new UnsupportedOperationException("No instantiation");
+    }
+
+    /**
+     * Creates an empty temporary directory, deleted on exit
+     */
+    static File tempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("Unable to create temporary directory " + dir);
+        }
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    /**
+     * Generates text of approximately {@code size} bytes, made of lines of random words. Fixed seed keeps the text
+     * the same between runs.
+     */
+    static String text(int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(size + 128);
+        while (sb.length() < size) {
+            int words = 4 + random.nextInt(12);
+            for (int i = 0; i < words; i++) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]).append(i + 1 < words ? ' ' : '\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes text file of approximately {@code size} bytes
+     */
+    static File textFile(File dir, String name, int size) throws IOException {
+        File file = new File(dir, name);
+        file.getParentFile().mkdirs();
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            out.write(text(size, name.hashCode()).getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Creates a directory tree of {@code files} text files of {@code size} bytes each
+     */
+    static File tree(File dir, int files, int size) throws IOException {
+        for (int i = 0; i < files; i++) {
+            textFile(dir, "dir" + (i % 10) + "/file" + i + ".txt", size);
+        }
+        return dir;
+    }
+
+    /**
+     * Packs {@code files} text files of {@code size} bytes into a zip archive
+     */
+    static File zip(File dir, int files, int size) throws IOException {
+        File source = tree(tempDir("spacelift-zip-source"), files, size);
+        File archive = new File(dir, "fixture.zip");
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archive)));
+        try {
+            for (File subdir : source.listFiles()) {
+                for (File file : subdir.listFiles()) {
+                    zip.putNextEntry(new ZipEntry(subdir.getName() + "/" + file.getName()));
+                    copy(file, zip);
+                    zip.closeEntry();
+                }
+            }
+        } finally {
+            zip.close();
+        }
+        return archive;
+    }
+
+    /**
+     * Packs {@code files} text files of {@code size} bytes into an uncompressed tar archive
+     */
+    static File tar(File dir, int files, int size) throws IOException {
+        File archive = new File(dir, "fixture.tar");
+        tar(files, size, new BufferedOutputStream(new FileOutputStream(archive)));
+        return archive;
+    }
+
+    /**
+     * Packs {@code files} text files of {@code size} bytes into a tar.gz archive
+     */
+    static File tarGz(File dir, int files, int size) throws IOException {
+        File archive = new File(dir, "fixture.tar.gz");
+        tar(files, size, new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(archive))));
+        return archive;
+    }
+
+    /**
+     * Packs {@code files} text files of {@code size} bytes into a tar.bz2 archive
+     */
+    static File tarBz2(File dir, int files, int size) throws IOException {
+        File archive = new File(dir, "fixture.tar.bz2");
+        tar(files, size, new BZip2CompressorOutputStream(new BufferedOutputStream(new FileOutputStream(archive))));
+        return archive;
+    }
+
+    private static void tar(int files, int size, OutputStream compressed) throws IOException {
+        File source = tree(tempDir("spacelift-tar-source"), files, size);
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(compressed);
+        try {
+            for (File subdir : source.listFiles()) {
+                for (File file : subdir.listFiles()) {
+                    TarArchiveEntry entry = new TarArchiveEntry(subdir.getName() + "/" + file.getName());
+                    entry.setSize(file.length());
+                    tar.putArchiveEntry(entry);
+                    copy(file, tar);
+                    tar.closeArchiveEntry();
+                }
+            }
+        } finally {
+            tar.close();
+        }
+    }
+
+    private static void copy(File file, OutputStream out) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.benchmark;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.task.text.StringReplacementTask;
+import org.arquillian.spacelift.task.text.StringReplacementTool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures string replacement on large content, both in memory by {@link StringReplacementTask} and in files by
+ * {@link StringReplacementTool}. Replacements leave the content unchanged, so every invocation does the same work.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringReplacementBenchmark {
+
+    @Param({ "1048576", "16777216" })
+    public int size;
+
+    private File file;
+    private String content;
+
+    @Setup
+    public void createContent() throws Exception {
+        file = Fixtures.textFile(Fixtures.tempDir("spacelift-replace"), "large.txt", size);
+        content = Fixtures.text(size, file.getName().hashCode());
+    }
+
+    @Benchmark
+    public Map<File, String> replaceInMemory() {
+        Map<File, String> input = new HashMap<File, String>();
+        input.put(file, content);
+        return Spacelift.task(input, StringReplacementTask.class)
+            .replace("spacelift").with("spacelift")
+            .replace("version (\\d)").with("version $1")
+            .execute().await();
+    }
+
+    @Benchmark
+    public Map<File, String> replaceInMemorySinglePass() {
+        Map<File, String> input = new HashMap<File, String>();
+        input.put(file, content);
+        return Spacelift.task(input, StringReplacementTask.class)
+            .singlePass()
+            .replace("spacelift").with("spacelift")
+            .replace("version (\\d)").with("version $1")
+            .execute().await();
+    }
+
+    @Benchmark
+    public List<File> replaceInFile() {
+        return Spacelift.task(StringReplacementTool.class).in(file)
+            .replace("spacelift").with("spacelift")
+            .replace("version (\\d)").with("version $1")
+            .execute().await();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.task.NoArgConstructorTaskFactory;
+import org.arquillian.spacelift.task.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares task instantiation by {@link NoArgConstructorTaskFactory}, which reuses constructor looked up once, with a
+ * reflective lookup on every call and with plain {@code new}
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskFactoryBenchmark {
+
+    private final NoArgConstructorTaskFactory<Object, Object, NoopTask> factory = new NoArgConstructorTaskFactory<Object, Object, NoopTask>(
+        NoopTask.class);
+
+    @Benchmark
+    public Task<?, ?> plainNew() {
+        return new NoopTask();
+    }
+
+    @Benchmark
+    public Task<?, ?> cachedConstructorFactory() {
+        return factory.create();
+    }
+
+    @Benchmark
+    public Task<?, ?> reflectiveLookupPerTask() throws Exception {
+        return NoopTask.class.getDeclaredConstructor().newInstance();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.task.archive.UntarTool;
+import org.arquillian.spacelift.task.archive.UnzipTool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures extraction of zip, tar, tar.gz and tar.bz2 archives generated in setup
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UncompressBenchmark {
+
+    @Param({ "100", "1000" })
+    public int files;
+
+    @Param({ "16384" })
+    public int fileSize;
+
+    private File zip;
+    private File tar;
+    private File tarGz;
+    private File tarBz2;
+    private File destination;
+    private File incrementalDestination;
+
+    @Setup
+    public void createArchives() throws Exception {
+        File dir = Fixtures.tempDir("spacelift-uncompress");
+        zip = Fixtures.zip(dir, files, fileSize);
+        tar = Fixtures.tar(dir, files, fileSize);
+        tarGz = Fixtures.tarGz(dir, files, fileSize);
+        tarBz2 = Fixtures.tarBz2(dir, files, fileSize);
+        destination = new File(dir, "extracted");
+        incrementalDestination = new File(dir, "incremental");
+    }
+
+    @Benchmark
+    public File unzip() {
+        return Spacelift.task(zip, UnzipTool.class).toDir(destination).execute().await();
+    }
+
+    @Benchmark
+    public File unzipParallel() {
+        return Spacelift.task(zip, UnzipTool.class).parallel().toDir(destination).execute().await();
+    }
+
+    @Benchmark
+    public File unzipIncremental() {
+        // destination is kept between invocations, so after the first one all entries are up to date
+        return Spacelift.task(zip, UnzipTool.class).incremental(true).toDir(incrementalDestination).execute().await();
+    }
+
+    @Benchmark
+    public File untar() {
+        return Spacelift.task(tar, UntarTool.class).gzip(false).toDir(destination).execute().await();
+    }
+
+    @Benchmark
+    public File untarGz() {
+        return Spacelift.task(tarGz, UntarTool.class).gzip(true).toDir(destination).execute().await();
+    }
+
+    @Benchmark
+    public File untarGzParallel() {
+        return Spacelift.task(tarGz, UntarTool.class).gzip(true).parallel().toDir(destination).execute().await();
+    }
+
+    @Benchmark
+    public File untarBz2() {
+        return Spacelift.task(tarBz2, UntarTool.class).bzip2(true).toDir(destination).execute().await();
+    }
+
+    @Benchmark
+    public File untarBz2Parallel() {
+        return Spacelift.task(tarBz2, UntarTool.class).bzip2(true).parallel().toDir(destination).execute().await();
+    }
+}
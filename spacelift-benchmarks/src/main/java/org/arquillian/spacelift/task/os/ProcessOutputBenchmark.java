@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.process.ProcessInteraction;
+import org.arquillian.spacelift.process.ProcessInteractionBuilder;
+import org.arquillian.spacelift.process.ProcessResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures throughput of {@link ConsumeProcessOutputTask} on output of a synthetic process, so neither process spawning
+ * nor the operating system affects the results. Lives in the package of the task, which is not public.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessOutputBenchmark {
+
+    @Param({ "100000" })
+    public int lines;
+
+    @Param({ "none", "matching" })
+    public String interaction;
+
+    @Param({ "false", "true" })
+    public boolean perCharacter;
+
+    private byte[] output;
+    private ProcessInteraction processInteraction;
+
+    @Setup
+    public void generateOutput() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("[INFO] line ").append(i).append(" of synthetic process output").append('\n');
+        }
+        output = sb.toString().getBytes("UTF-8");
+
+        processInteraction = "matching".equals(interaction)
+            ? new ProcessInteractionBuilder().when(".*line \\d*7 of.*").replyWith("ok\n").when("BUILD FAILURE").terminate()
+                .build()
+            : ProcessInteractionBuilder.NO_INTERACTION;
+    }
+
+    @Benchmark
+    public ProcessResult consume() {
+        final Process process = new SyntheticProcess(output);
+        Execution<Process> running = Spacelift.service().execute(new Callable<Process>() {
+            @Override
+            public Process call() throws Exception {
+                return process;
+            }
+        });
+
+        return Spacelift.task(running, ConsumeProcessOutputTask.class).programName("synthetic")
+            .interaction(processInteraction).perCharacter(perCharacter)
+            .output(OutputRetention.lastLines(100).createBuffer())
+            .execute().await();
+    }
+
+    /**
+     * Process that has already exited and left its output behind
+     */
+    private static class SyntheticProcess extends Process {
+
+        private final InputStream output;
+        private final InputStream errorOutput;
+        private final OutputStream input;
+
+        SyntheticProcess(byte[] output) {
+            this.output = new ByteArrayInputStream(output);
+            this.errorOutput = new ByteArrayInputStream(new byte[0]);
+            this.input = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return input;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return output;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return errorOutput;
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
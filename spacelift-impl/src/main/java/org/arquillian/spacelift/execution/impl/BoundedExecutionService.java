@@ -0,0 +1,487 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.execution.impl;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.task.TaskCallable;
+
+/**
+ * Execution service with bounded number of threads. Callables that cannot be executed immediately are queued, and when the
+ * queue is full, {@link RejectionPolicy} applies. Concurrency of particular task types can be limited further, callables
+ * of a limited type wait in a separate queue until a running callable of the same type finishes.
+ *
+ * Note that tasks waiting for other executions, for instance chained tasks, occupy a thread while waiting. By default,
+ * callables are handed directly to threads, with no queue, and once all threads are busy, callables submitted by threads
+ * of the pool are run by the submitting thread, so nested tasks never wait for each other. A queue, see
+ * {@link Configuration#queueSize(int)}, defers new threads until it is full, so nested tasks might wait forever for
+ * their queued children if all threads are occupied by their parents.
+ *
+ * To use it with default configuration, set {@link Spacelift#EXECUTION_SERVICE_PROPERTY} system property to the name of
+ * this class. Configuration is then read from {@code spacelift.execution.*} system properties, see
+ * {@link Configuration#fromSystemProperties()}.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class BoundedExecutionService extends ExecutionServiceImpl {
+
+    /**
+     * Defines what happens with a callable if all threads are busy and the queue is full
+     */
+    public enum RejectionPolicy {
+        /**
+         * Callable is executed by the thread that submitted it
+         */
+        CALLER_RUNS,
+        /**
+         * Thread that submitted callable waits until there is space in the queue
+         */
+        BLOCK,
+        /**
+         * Submission fails with {@link ExecutionException}
+         */
+        FAIL
+    }
+
+    // marks threads of the pool, these must not block on a full queue
+    private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<Boolean>();
+
+    private final ThreadPoolExecutor executor;
+    private final RejectionPolicy rejectionPolicy;
+    private final Map<String, TypeLimit> limits;
+    private final AtomicLong rejected;
+
+    /**
+     * Creates service configured by system properties
+     */
+    public BoundedExecutionService() {
+        this(Configuration.fromSystemProperties());
+    }
+
+    /**
+     * Creates service with given configuration
+     *
+     * @param configuration the configuration
+     */
+    public BoundedExecutionService(Configuration configuration) {
+        this(configuration, createExecutor(configuration));
+    }
+
+    private BoundedExecutionService(Configuration configuration, ThreadPoolExecutor executor) {
+        super(executor, newScheduler(new SpaceliftThreadFactory()));
+        this.executor = executor;
+        this.rejectionPolicy = configuration.rejectionPolicy;
+        this.rejected = new AtomicLong();
+        this.limits = new HashMap<String, TypeLimit>();
+        for (Map.Entry<String, Integer> limit : configuration.limits.entrySet()) {
+            limits.put(limit.getKey(), new TypeLimit(limit.getValue()));
+        }
+        executor.setRejectedExecutionHandler(new CountingRejectionHandler());
+    }
+
+    @Override
+    public <T> Execution<T> execute(final Callable<T> task) throws ExecutionException {
+        final TypeLimit limit = task instanceof TaskCallable ? limits.get(((TaskCallable<?>) task).getTaskType().getName())
+            : null;
+
+        FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Boolean wasWorker = WORKER.get();
+                WORKER.set(Boolean.TRUE);
+                try {
+                    return task.call();
+                } finally {
+                    // deferred callable is dispatched while still a worker, so it never blocks on a full queue
+                    try {
+                        if (limit != null) {
+                            Runnable next = limit.release();
+                            if (next != null) {
+                                dispatchDeferred(next);
+                            }
+                        }
+                    } finally {
+                        WORKER.set(wasWorker);
+                    }
+                }
+            }
+        });
+
+        if (limit == null || limit.acquire(future)) {
+            try {
+                dispatch(future);
+            } catch (RejectedExecutionException e) {
+                if (limit != null) {
+                    limit.release();
+                }
+                throw new ExecutionException(e, "Unable to execute {0}, all {1} threads are busy and queue is full",
+                    task instanceof TaskCallable ? ((TaskCallable<?>) task).getTaskType().getSimpleName() : task,
+                    executor.getMaximumPoolSize());
+            }
+        }
+
+        return new FutureBasedExecution<T>(this, task, future);
+    }
+
+    /**
+     * Returns number of callables waiting for a thread, including callables waiting because of task type limits
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size() + getDeferredCount();
+    }
+
+    /**
+     * Returns number of callables waiting because of task type limits
+     *
+     * @return
+     */
+    public int getDeferredCount() {
+        int deferred = 0;
+        for (TypeLimit limit : limits.values()) {
+            deferred += limit.deferredCount();
+        }
+        return deferred;
+    }
+
+    /**
+     * Returns approximate number of threads that are executing callables
+     *
+     * @return
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns number of callables that were rejected because the queue was full, regardless of the rejection policy
+     *
+     * @return
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private void dispatch(Runnable runnable) {
+        executor.execute(runnable);
+    }
+
+    // deferred callable already holds a permit, it must not be lost
+    private void dispatchDeferred(Runnable runnable) {
+        try {
+            dispatch(runnable);
+        } catch (RejectedExecutionException e) {
+            runnable.run();
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(Configuration configuration) {
+        BlockingQueue<Runnable> queue = configuration.queueSize > 0
+            ? new ArrayBlockingQueue<Runnable>(configuration.queueSize)
+            : new SynchronousQueue<Runnable>();
+        return new ThreadPoolExecutor(configuration.coreThreads, configuration.maxThreads, configuration.keepAliveSeconds,
+            TimeUnit.SECONDS, queue, new SpaceliftThreadFactory());
+    }
+
+    private class CountingRejectionHandler implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejected.incrementAndGet();
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Execution service was shut down");
+            }
+            switch (rejectionPolicy) {
+                case BLOCK:
+                    // threads of the pool would block each other
+                    if (WORKER.get() == null) {
+                        try {
+                            executor.getQueue().put(r);
+                            return;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for space in the queue");
+                        }
+                    }
+                    r.run();
+                    return;
+                case CALLER_RUNS:
+                    r.run();
+                    return;
+                case FAIL:
+                default:
+                    throw new RejectedExecutionException("Queue is full");
+            }
+        }
+    }
+
+    /**
+     * Concurrency limit of a task type
+     */
+    private static class TypeLimit {
+        private final int permits;
+        private final Queue<Runnable> deferred;
+        private int running;
+
+        TypeLimit(int permits) {
+            this.permits = permits;
+            this.deferred = new LinkedList<Runnable>();
+        }
+
+        /**
+         * Acquires a permit or defers the runnable
+         *
+         * @return {@code true} if runnable should be dispatched now
+         */
+        synchronized boolean acquire(Runnable runnable) {
+            if (running < permits) {
+                running++;
+                return true;
+            }
+            deferred.add(runnable);
+            return false;
+        }
+
+        /**
+         * Releases a permit or passes it to a deferred runnable
+         *
+         * @return runnable that got the permit and should be dispatched
+         */
+        synchronized Runnable release() {
+            Runnable next = deferred.poll();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+
+        synchronized int deferredCount() {
+            return deferred.size();
+        }
+    }
+
+    /**
+     * Configuration of {@link BoundedExecutionService}
+     */
+    public static class Configuration {
+
+        /**
+         * Prefix of system properties read by {@link #fromSystemProperties()}
+         */
+        public static final String PROPERTY_PREFIX = "spacelift.execution.";
+
+        private int coreThreads;
+        private int maxThreads;
+        private int queueSize;
+        private long keepAliveSeconds;
+        private RejectionPolicy rejectionPolicy;
+        private final Map<String, Integer> limits;
+
+        /**
+         * Creates default configuration. It uses as many core threads as there are processors, up to 8 times more threads
+         * if needed, no queue and {@link RejectionPolicy#BLOCK}. This configuration cannot deadlock nested tasks.
+         */
+        public Configuration() {
+            int processors = Runtime.getRuntime().availableProcessors();
+            this.coreThreads = processors;
+            this.maxThreads = processors * 8;
+            this.queueSize = 0;
+            this.keepAliveSeconds = 60;
+            this.rejectionPolicy = RejectionPolicy.BLOCK;
+            this.limits = new HashMap<String, Integer>();
+        }
+
+        /**
+         * Creates configuration from system properties {@code spacelift.execution.coreThreads},
+         * {@code spacelift.execution.maxThreads}, {@code spacelift.execution.queueSize},
+         * {@code spacelift.execution.keepAliveSeconds}, {@code spacelift.execution.rejectionPolicy} and
+         * {@code spacelift.execution.limits}. Limits are a comma separated list of
+         * {@code fully.qualified.TaskName=permits}. Defaults are used for properties that are not set.
+         *
+         * @return
+         * @throws IllegalArgumentException if a property has invalid value
+         */
+        public static Configuration fromSystemProperties() throws IllegalArgumentException {
+            Configuration configuration = new Configuration();
+
+            String value = System.getProperty(PROPERTY_PREFIX + "coreThreads");
+            if (value != null) {
+                configuration.coreThreads(parse("coreThreads", value));
+            }
+            value = System.getProperty(PROPERTY_PREFIX + "maxThreads");
+            if (value != null) {
+                configuration.maxThreads(parse("maxThreads", value));
+            }
+            value = System.getProperty(PROPERTY_PREFIX + "queueSize");
+            if (value != null) {
+                configuration.queueSize(parse("queueSize", value));
+            }
+            value = System.getProperty(PROPERTY_PREFIX + "keepAliveSeconds");
+            if (value != null) {
+                configuration.keepAliveSeconds(parse("keepAliveSeconds", value));
+            }
+            value = System.getProperty(PROPERTY_PREFIX + "rejectionPolicy");
+            if (value != null) {
+                try {
+                    configuration.rejectionPolicy(RejectionPolicy.valueOf(value.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid value of " + PROPERTY_PREFIX + "rejectionPolicy: " + value);
+                }
+            }
+            value = System.getProperty(PROPERTY_PREFIX + "limits");
+            if (value != null) {
+                for (String limit : value.split(",")) {
+                    if (limit.trim().length() == 0) {
+                        continue;
+                    }
+                    String[] parts = limit.split("=");
+                    if (parts.length != 2) {
+                        throw new IllegalArgumentException("Invalid value of " + PROPERTY_PREFIX + "limits: " + value);
+                    }
+                    configuration.limit(parts[0].trim(), parse("limits", parts[1]));
+                }
+            }
+
+            return configuration;
+        }
+
+        /**
+         * Sets number of threads kept even if idle
+         *
+         * @param coreThreads number of threads
+         * @return
+         */
+        public Configuration coreThreads(int coreThreads) {
+            if (coreThreads < 0) {
+                throw new IllegalArgumentException("Number of core threads must not be negative, was " + coreThreads);
+            }
+            this.coreThreads = coreThreads;
+            this.maxThreads = Math.max(maxThreads, coreThreads);
+            return this;
+        }
+
+        /**
+         * Sets maximal number of threads. Threads above core threads are created only if the queue is full.
+         *
+         * @param maxThreads number of threads
+         * @return
+         */
+        public Configuration maxThreads(int maxThreads) {
+            if (maxThreads < 1) {
+                throw new IllegalArgumentException("Maximal number of threads must be positive, was " + maxThreads);
+            }
+            this.maxThreads = maxThreads;
+            this.coreThreads = Math.min(coreThreads, maxThreads);
+            return this;
+        }
+
+        /**
+         * Sets number of callables that can wait for a thread. If {@code 0}, which is the default, callables are handed
+         * directly to threads. Threads above core threads are created only once the queue is full, so tasks waiting for
+         * queued nested tasks might occupy all threads and wait forever.
+         *
+         * @param queueSize size of the queue
+         * @return
+         */
+        public Configuration queueSize(int queueSize) {
+            if (queueSize < 0) {
+                throw new IllegalArgumentException("Queue size must not be negative, was " + queueSize);
+            }
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        /**
+         * Sets how long threads above core threads are kept if idle
+         *
+         * @param keepAliveSeconds time in seconds
+         * @return
+         */
+        public Configuration keepAliveSeconds(long keepAliveSeconds) {
+            if (keepAliveSeconds < 0) {
+                throw new IllegalArgumentException("Keep alive time must not be negative, was " + keepAliveSeconds);
+            }
+            this.keepAliveSeconds = keepAliveSeconds;
+            return this;
+        }
+
+        /**
+         * Sets what happens if all threads are busy and the queue is full
+         *
+         * @param rejectionPolicy the policy
+         * @return
+         */
+        public Configuration rejectionPolicy(RejectionPolicy rejectionPolicy) {
+            if (rejectionPolicy == null) {
+                throw new IllegalArgumentException("Rejection policy must not be null");
+            }
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        /**
+         * Limits number of concurrently executed tasks of type {@code taskType}
+         *
+         * @param taskType the task type
+         * @param permits number of tasks that can be executed concurrently
+         * @return
+         */
+        public Configuration limit(Class<?> taskType, int permits) {
+            return limit(taskType.getName(), permits);
+        }
+
+        /**
+         * Limits number of concurrently executed tasks of type named {@code taskTypeName}
+         *
+         * @param taskTypeName fully qualified name of the task type
+         * @param permits number of tasks that can be executed concurrently
+         * @return
+         */
+        public Configuration limit(String taskTypeName, int permits) {
+            if (permits < 1) {
+                throw new IllegalArgumentException("Limit of " + taskTypeName + " must be positive, was " + permits);
+            }
+            limits.put(taskTypeName, permits);
+            return this;
+        }
+
+        private static int parse(String property, String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value of " + PROPERTY_PREFIX + property + ": " + value);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
@@ -41,9 +42,59 @@ public class ExecutionServiceImpl implements ExecutionService {
     private final ScheduledExecutorService scheduledService;
 
     public ExecutionServiceImpl() {
-        final ThreadFactory threadFactory = new SpaceliftThreadFactory();
-        this.service = Executors.newCachedThreadPool(threadFactory);
-        this.scheduledService = Executors.newScheduledThreadPool(1, threadFactory);
+        this(new SpaceliftThreadFactory());
+    }
+
+    private ExecutionServiceImpl(ThreadFactory threadFactory) {
+        this(Executors.newCachedThreadPool(threadFactory), newScheduler(threadFactory));
+    }
+
+    /**
+     * Creates execution service backed by given executors
+     *
+     * @param service executor used to execute callables
+     * @param scheduledService executor used to schedule callables
+     */
+    protected ExecutionServiceImpl(ExecutorService service, ScheduledExecutorService scheduledService) {
+        this.service = service;
+        this.scheduledService = scheduledService;
+    }
+
+    /**
+     * Creates executor for scheduled callables with a thread per available processor, so that concurrent polling
+     * executions do not wait for each other
+     *
+     * @param threadFactory factory of the threads
+     * @return
+     */
+    static ScheduledExecutorService newScheduler(ThreadFactory threadFactory) {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
+            threadFactory);
+        // cancelled polling should not stay in the queue until its delay expires, available since Java 7
+        try {
+            ScheduledThreadPoolExecutor.class.getMethod("setRemoveOnCancelPolicy", boolean.class).invoke(scheduler, true);
+        } catch (Exception e) {
+            // ignore, cancelled tasks are removed once their delay expires
+        }
+        return scheduler;
+    }
+
+    /**
+     * Returns executor used to execute callables
+     *
+     * @return
+     */
+    ExecutorService getService() {
+        return service;
+    }
+
+    /**
+     * Returns executor used to schedule callables
+     *
+     * @return
+     */
+    ScheduledExecutorService getScheduledService() {
+        return scheduledService;
     }
 
     @Override
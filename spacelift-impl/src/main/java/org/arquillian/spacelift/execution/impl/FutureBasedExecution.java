@@ -25,7 +25,6 @@ import org.arquillian.spacelift.execution.CountDownWatch;
 import org.arquillian.spacelift.execution.Execution;
 import org.arquillian.spacelift.execution.ExecutionCondition;
 import org.arquillian.spacelift.execution.ExecutionException;
-import org.arquillian.spacelift.execution.ExecutionService;
 import org.arquillian.spacelift.execution.TimeoutExecutionException;
 
 /**
@@ -43,14 +42,14 @@ class FutureBasedExecution<RESULT> implements Execution<RESULT> {
 
     private final Callable<RESULT> executionTask;
     private final Future<RESULT> executionFuture;
-    private final ExecutionService service;
+    private final ExecutionServiceImpl service;
 
     private long pollInterval;
     private TimeUnit pollUnit;
 
     private boolean shouldBeFinished;
 
-    public FutureBasedExecution(ExecutionService service, Callable<RESULT> task, Future<RESULT> future) {
+    public FutureBasedExecution(ExecutionServiceImpl service, Callable<RESULT> task, Future<RESULT> future) {
         this.service = service;
         this.executionTask = task;
         this.executionFuture = future;
@@ -127,31 +126,31 @@ class FutureBasedExecution<RESULT> implements Execution<RESULT> {
         TimeoutExecutionException {
 
         CountDownWatch countdown = new CountDownWatch(timeout, unit);
-        Execution<RESULT> currentExecution = new FutureBasedExecution<RESULT>(service, executionTask, executionFuture);
 
-        // keep scheduling task until we have some time
-        while (countdown.timeLeft() > 0) {
-
-            Execution<RESULT> nextExecution = service.schedule(executionTask, pollInterval, pollUnit);
+        // evaluate current execution first
+        try {
+            RESULT result = awaitAtMost(countdown.timeLeft(), countdown.getTimeUnit());
+            if (condition.satisfiedBy(result)) {
+                return result;
+            }
+        } catch (TimeoutExecutionException e) {
+            // fall through, there is no time left
+        }
 
+        // keep re-executing task with a single scheduled loop until we have some time
+        if (countdown.timeLeft() > 0) {
+            PollingLoop<RESULT> loop = new PollingLoop<RESULT>(executionTask, condition).start(
+                service.getScheduledService(), pollInterval, pollUnit);
             try {
-                RESULT result = currentExecution.awaitAtMost(countdown.timeLeft(), countdown.getTimeUnit());
-                if (condition.satisfiedBy(result)) {
-                    // terminate execution of next callable
-                    // we want to ignore failures in termination
-                    try {
-                        nextExecution.terminate();
-                    } catch (ExecutionException e) {
-                        e.printStackTrace();
+                if (loop.await(countdown.timeLeft(), countdown.getTimeUnit())) {
+                    if (loop.getFailure() != null) {
+                        throw unwrapException(loop.getFailure(), "Execution of a task failed");
                     }
-                    return result;
+                    return loop.getResult();
                 }
-            } catch (TimeoutExecutionException e) {
-                continue;
+            } catch (InterruptedException e) {
+                throw unwrapException(e, "Interrupted while executing a task");
             }
-
-            // continue evaluating scheduled execution
-            currentExecution = nextExecution;
         }
 
         throw new TimeoutExecutionException("Unable to trigger condition within {0} {1}.", timeout, unit.toString()
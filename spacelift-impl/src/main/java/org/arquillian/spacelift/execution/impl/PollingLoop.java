@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.execution.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.execution.ExecutionCondition;
+
+/**
+ * Re-executes a callable with a fixed delay until its result satisfies a condition. The loop is scheduled once, so
+ * iterations reuse the same scheduled task instead of creating a new future and execution for every poll.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <RESULT> Result of the callable
+ */
+class PollingLoop<RESULT> implements Runnable {
+
+    private final Callable<RESULT> task;
+    private final ExecutionCondition<RESULT> condition;
+    private final CountDownLatch done;
+
+    private volatile Future<?> handle;
+    private volatile RESULT result;
+    private volatile Throwable failure;
+
+    PollingLoop(Callable<RESULT> task, ExecutionCondition<RESULT> condition) {
+        this.task = task;
+        this.condition = condition;
+        this.done = new CountDownLatch(1);
+    }
+
+    /**
+     * Starts the loop
+     *
+     * @param scheduler scheduler to run the iterations
+     * @param delay delay before the first iteration and between iterations
+     * @param unit unit of the delay
+     * @return
+     */
+    PollingLoop<RESULT> start(ScheduledExecutorService scheduler, long delay, TimeUnit unit) {
+        handle = scheduler.scheduleWithFixedDelay(this, delay, delay, unit);
+        // the loop might have finished before handle was available
+        if (isDone()) {
+            handle.cancel(false);
+        }
+        return this;
+    }
+
+    /**
+     * Waits until the condition is satisfied or the loop fails. The loop is stopped if it does not finish in time.
+     *
+     * @param timeout the timeout
+     * @param unit unit of the timeout
+     * @return {@code true} if the loop finished in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            if (done.await(timeout, unit)) {
+                return true;
+            }
+        } finally {
+            if (!isDone()) {
+                stop();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns result that satisfied the condition, if any
+     *
+     * @return
+     */
+    RESULT getResult() {
+        return result;
+    }
+
+    /**
+     * Returns exception thrown by the callable or the condition, if any
+     *
+     * @return
+     */
+    Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void run() {
+        if (isDone()) {
+            return;
+        }
+        try {
+            RESULT current = task.call();
+            if (condition.satisfiedBy(current)) {
+                result = current;
+                finish();
+            }
+        } catch (Throwable e) {
+            failure = e;
+            finish();
+        }
+    }
+
+    private boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    private void finish() {
+        done.countDown();
+        stop();
+    }
+
+    private void stop() {
+        Future<?> current = handle;
+        if (current != null) {
+            current.cancel(false);
+        }
+    }
+}
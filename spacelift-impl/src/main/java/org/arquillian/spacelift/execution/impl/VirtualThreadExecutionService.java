@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.execution.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.arquillian.spacelift.Spacelift;
+
+/**
+ * Execution service that runs every callable on its own virtual thread, if the JVM supports them. Otherwise, it behaves
+ * as {@link ExecutionServiceImpl}.
+ *
+ * Virtual threads are cheap to block, so tasks waiting for other executions, downloads or processes do not hold platform
+ * threads. Scheduled callables still run on platform threads, one per processor.
+ *
+ * To use it, set {@link Spacelift#EXECUTION_SERVICE_PROPERTY} system property to the name of this class.
+ *
+ * @author <a href="mailto:kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class VirtualThreadExecutionService extends ExecutionServiceImpl {
+
+    private static final Logger log = Logger.getLogger(VirtualThreadExecutionService.class.getName());
+
+    public VirtualThreadExecutionService() {
+        super(virtualThreadExecutor(), newScheduler(new SpaceliftThreadFactory()));
+    }
+
+    /**
+     * Checks whether virtual threads are supported by the JVM. The JVM is probed only once, by creating and shutting
+     * down a virtual thread executor, as the factory method exists even if virtual threads are not enabled, for instance
+     * on JDK 19 and 20 without {@code --enable-preview}.
+     *
+     * @return
+     */
+    public static boolean isSupported() {
+        return Probe.SUPPORTED;
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        if (isSupported()) {
+            try {
+                return newVirtualThreadPerTaskExecutor();
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Unable to create virtual thread executor, falling back to cached thread pool", e);
+            }
+        }
+        else {
+            log.log(Level.INFO, "Virtual threads are not supported by the JVM, falling back to cached thread pool");
+        }
+        return Executors.newCachedThreadPool(new SpaceliftThreadFactory());
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Holds result of the probe, so it is computed on the first use
+     */
+    private static class Probe {
+        static final boolean SUPPORTED = probe();
+
+        private static boolean probe() {
+            try {
+                newVirtualThreadPerTaskExecutor().shutdown();
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            } catch (Exception e) {
+                log.log(Level.FINE, "Virtual threads are not enabled in the JVM", e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+
+/**
+ * Decides which entries are extracted, only by the header of the entry. An entry is accepted if its name matches any
+ * of included patterns, or there are none, it does not match any of excluded patterns and its size does not exceed the
+ * maximal size. Names are matched as they are stored in the archive, with forward slash as a delimiter.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class EntryFilter {
+
+    private final List<Pattern> includes = new ArrayList<Pattern>();
+    private final List<Pattern> excludes = new ArrayList<Pattern>();
+    private long maxSize = -1;
+
+    void include(Pattern pattern) {
+        includes.add(pattern);
+    }
+
+    void exclude(Pattern pattern) {
+        excludes.add(pattern);
+    }
+
+    void maxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    boolean accepts(ArchiveEntry entry) {
+        // size is unknown for some entries, these are not rejected
+        if (maxSize != -1 && !entry.isDirectory() && entry.getSize() > maxSize) {
+            return false;
+        }
+        String name = entry.getName().replace('\\', '/');
+        if (!includes.isEmpty() && !matchesAny(includes, name)) {
+            return false;
+        }
+        return !matchesAny(excludes, name);
+    }
+
+    /**
+     * Converts a glob to a regular expression. {@code *} matches any characters but slash, {@code **} matches any
+     * characters including slashes, {@code ?} matches a single character but slash. A glob ending with slash matches
+     * everything in the directory.
+     */
+    static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int length = glob.length();
+        for (int i = 0; i < length; i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < length && glob.charAt(i + 1) == '*') {
+                i++;
+                if (i + 1 < length && glob.charAt(i + 1) == '/') {
+                    // **/ matches no directory as well
+                    i++;
+                    regex.append("(?:.*/)?");
+                } else {
+                    regex.append(".*");
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if ("\\.[]{}()+-^$|".indexOf(c) != -1) {
+                regex.append('\\').append(c);
+            } else {
+                regex.append(c);
+            }
+        }
+        if (glob.endsWith("/")) {
+            regex.append(".*");
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(name).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.arquillian.spacelift.util.FileUtil;
+
+/**
+ * Records files extracted into a destination directory, so the next extraction can skip entries that did not change.
+ * The manifest is stored next to the destination directory, as {@code <destination>.manifest}. For every extracted
+ * file, it holds a description of the archive entry, such as its size, checksum or modification time and mode,
+ * together with size and modification time of the file written. An entry is up to date only if both the entry and the
+ * file on the disk match the record, so files modified or deleted after extraction are extracted again.
+ *
+ * Records can be added concurrently.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ExtractionManifest {
+
+    private static final Logger log = Logger.getLogger(ExtractionManifest.class.getName());
+
+    private static final String SUFFIX = ".manifest";
+    private static final char SEPARATOR = '/';
+
+    private final File destination;
+    private final File file;
+    private final Properties previous = new Properties();
+    // properties are synchronized
+    private final Properties current = new Properties();
+
+    /**
+     * Loads manifest of the destination directory, if there is any
+     */
+    ExtractionManifest(File destination) {
+        this.destination = destination;
+        File absolute = destination.getAbsoluteFile();
+        this.file = new File(absolute.getParentFile(), absolute.getName() + SUFFIX);
+        if (file.isFile()) {
+            load();
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@code file} was extracted from an entry described by {@code entryRecord} and it was not
+     * changed since. Such file is kept in the manifest.
+     */
+    boolean isUpToDate(String name, String entryRecord, File file) {
+        String recorded = previous.getProperty(name);
+        if (recorded != null && file.isFile() && recorded.equals(record(entryRecord, file))) {
+            current.setProperty(name, recorded);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that {@code file} was extracted from an entry described by {@code entryRecord}
+     */
+    void extracted(String name, String entryRecord, File file) {
+        current.setProperty(name, record(entryRecord, file));
+    }
+
+    /**
+     * Deletes files recorded by previous extraction, which were not extracted nor found up to date by this one
+     */
+    void prune() {
+        for (String name : previous.stringPropertyNames()) {
+            if (!current.containsKey(name)) {
+                FileUtil.deleteQuietly(new File(destination, name));
+            }
+        }
+    }
+
+    /**
+     * Replaces the manifest by files recorded by this extraction
+     */
+    void store() throws IOException {
+        File temp = FileUtil.createTempSibling(file);
+        try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                current.store(out, "Files extracted into " + destination.getName());
+            } finally {
+                out.close();
+            }
+            FileUtil.replace(temp, file);
+        } finally {
+            FileUtil.deleteQuietly(temp);
+        }
+    }
+
+    private void load() {
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                previous.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to read extraction manifest {0}, all entries will be extracted again",
+                file.getAbsolutePath());
+            previous.clear();
+        } catch (IllegalArgumentException e) {
+            log.log(Level.WARNING, "Extraction manifest {0} is corrupted, all entries will be extracted again",
+                file.getAbsolutePath());
+            previous.clear();
+        }
+    }
+
+    private static String record(String entryRecord, File file) {
+        return entryRecord + SEPARATOR + file.length() + SEPARATOR + file.lastModified();
+    }
+}
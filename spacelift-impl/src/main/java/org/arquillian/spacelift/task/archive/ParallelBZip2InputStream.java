@@ -0,0 +1,425 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.ExecutionService;
+
+/**
+ * Input stream that decompresses bzip2 blocks in parallel.
+ *
+ * Bzip2 blocks are compressed independently and each of them starts with a 48 bit magic number, not aligned to bytes.
+ * The stream scans compressed data for the magic numbers, copies every block into a standalone bzip2 stream with the
+ * block CRC as the stream CRC and decompresses these streams by {@link BZip2CompressorInputStream} using
+ * {@link ExecutionService}. Decompressed blocks are returned in the original order. The magic number might appear
+ * inside of compressed data by chance, a block that cannot be decompressed alone is therefore retried together with the
+ * following blocks. Concatenated bzip2 streams are decompressed as a single stream.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ParallelBZip2InputStream extends InputStream {
+
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+    private static final long END_MAGIC = 0x177245385090L;
+    private static final long MAGIC_MASK = 0xffffffffffffL;
+    private static final int MAGIC_BITS = 48;
+    private static final int CRC_BITS = 32;
+
+    private static final int MAX_MERGED_BLOCKS = 3;
+
+    private final InputStream source;
+    private final ExecutionService service;
+    private final int parallelism;
+
+    // blocks being decompressed, in order
+    private final LinkedList<Block> blocks = new LinkedList<Block>();
+    // blocks scanned but not submitted yet
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+
+    private final byte[] readBuffer = new byte[8192];
+    private long register;
+    private long bitPosition;
+    private byte[] raw = new byte[1024 * 1024];
+    private int rawLength;
+    private long rawStart;
+    private long blockStart = -1;
+    // end of stream magic numbers following the current block
+    private final List<Long> blockEnds = new ArrayList<Long>();
+    private boolean sourceEnd;
+
+    private byte[] current = new byte[0];
+    private int position;
+    private boolean closed;
+
+    ParallelBZip2InputStream(InputStream source, int parallelism, ExecutionService service) throws IOException {
+        this.source = source;
+        this.parallelism = parallelism;
+        this.service = service;
+
+        byte[] header = new byte[4];
+        int length = 0;
+        int read;
+        while (length < header.length && (read = source.read(header, length, header.length - length)) != -1) {
+            length += read;
+        }
+        if (length < header.length || header[0] != 'B' || header[1] != 'Z' || header[2] != 'h' || header[3] < '1'
+            || header[3] > '9') {
+            throw new IOException("Stream is not in the BZip2 format");
+        }
+        for (byte b : header) {
+            scan(b);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Block block : blocks) {
+            block.terminate();
+        }
+        blocks.clear();
+        source.close();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream was closed");
+        }
+        while (position == current.length) {
+            while (blocks.size() < parallelism * 2) {
+                Segment segment = nextSegment();
+                if (segment == null) {
+                    break;
+                }
+                blocks.add(new Block(segment));
+            }
+            if (blocks.isEmpty()) {
+                return false;
+            }
+            current = decompressed(blocks.removeFirst());
+            position = 0;
+        }
+        return true;
+    }
+
+    private byte[] decompressed(Block block) throws IOException {
+        IOException failure;
+        try {
+            return block.execution.await();
+        } catch (ExecutionException e) {
+            failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        }
+
+        // end of stream magic number found inside of compressed data
+        Segment segment = block.segment;
+        for (int i = 1; i <= segment.ends.length; i++) {
+            try {
+                return decompress(Collections.singletonList(segment.endingAt(i)));
+            } catch (IOException ignore) {
+                // block magic number found inside of compressed data
+            }
+        }
+
+        List<Segment> merged = new ArrayList<Segment>();
+        merged.add(segment);
+        while (merged.size() <= MAX_MERGED_BLOCKS) {
+            Segment next;
+            if (!blocks.isEmpty()) {
+                Block nextBlock = blocks.removeFirst();
+                nextBlock.terminate();
+                next = nextBlock.segment;
+            } else {
+                next = nextSegment();
+            }
+            if (next == null) {
+                break;
+            }
+            merged.add(next);
+            try {
+                return decompress(merged);
+            } catch (IOException ignore) {
+                // try with more blocks
+            }
+        }
+        throw failure;
+    }
+
+    private Segment nextSegment() throws IOException {
+        while (segments.isEmpty() && !sourceEnd) {
+            int read = source.read(readBuffer, 0, readBuffer.length);
+            if (read == -1) {
+                sourceEnd = true;
+                finishBlock(bitPosition);
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                scan(readBuffer[i]);
+            }
+            if (blockStart < 0 && rawLength > 8) {
+                // magic number of the next block can start in last bytes
+                discardRaw(rawStart + rawLength - 8);
+            }
+        }
+        return segments.poll();
+    }
+
+    private void scan(byte b) {
+        if (rawLength == raw.length) {
+            raw = Arrays.copyOf(raw, raw.length * 2);
+        }
+        raw[rawLength++] = b;
+
+        for (int bit = 7; bit >= 0; bit--) {
+            register = (register << 1) | ((b >>> bit) & 1);
+            bitPosition++;
+            long magic = register & MAGIC_MASK;
+            if (magic == BLOCK_MAGIC) {
+                long start = bitPosition - MAGIC_BITS;
+                finishBlock(start);
+                blockStart = start;
+            } else if (magic == END_MAGIC && blockStart >= 0) {
+                blockEnds.add(bitPosition - MAGIC_BITS - blockStart);
+            }
+        }
+    }
+
+    private void finishBlock(long end) {
+        if (blockStart < 0) {
+            return;
+        }
+        int from = (int) (blockStart / 8 - rawStart);
+        int to = (int) ((end + 7) / 8 - rawStart);
+        long[] ends = new long[blockEnds.size()];
+        for (int i = 0; i < ends.length; i++) {
+            ends[i] = blockEnds.get(i);
+        }
+        segments.add(new Segment(Arrays.copyOfRange(raw, from, to), (int) (blockStart % 8), ends, end - blockStart));
+
+        blockStart = -1;
+        blockEnds.clear();
+        discardRaw(end / 8);
+    }
+
+    private void discardRaw(long start) {
+        int shift = (int) (start - rawStart);
+        System.arraycopy(raw, shift, raw, 0, rawLength - shift);
+        rawLength -= shift;
+        rawStart = start;
+    }
+
+    /**
+     * Decompresses contiguous segments as a single bzip2 block
+     */
+    private static byte[] decompress(List<Segment> parts) throws IOException {
+        int capacity = 16;
+        for (Segment part : parts) {
+            capacity += part.bytes.length;
+        }
+        BitWriter stream = new BitWriter(capacity);
+        stream.write('B', 8);
+        stream.write('Z', 8);
+        stream.write('h', 8);
+        stream.write('9', 8);
+        for (int i = 0; i < parts.size(); i++) {
+            Segment part = parts.get(i);
+            stream.copy(part.bytes, part.offset, i == parts.size() - 1 ? part.dataBits : part.rawBits);
+        }
+        stream.write(END_MAGIC, MAGIC_BITS);
+        stream.write(parts.get(0).crc(), CRC_BITS);
+
+        BZip2CompressorInputStream input = new BZip2CompressorInputStream(new ByteArrayInputStream(stream.toByteArray()));
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(capacity * 4);
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer, 0, buffer.length)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Bits of a block, starting with its magic number
+     */
+    private static class Segment {
+        final byte[] bytes;
+        final int offset;
+        // bits up to end of stream magic numbers that follow the block
+        final long[] ends;
+        // bits up to the next block
+        final long rawBits;
+        // bits of the block, if the first end of stream magic number is a real one
+        final long dataBits;
+
+        Segment(byte[] bytes, int offset, long[] ends, long rawBits) {
+            this(bytes, offset, ends, rawBits, ends.length > 0 ? ends[0] : rawBits);
+        }
+
+        private Segment(byte[] bytes, int offset, long[] ends, long rawBits, long dataBits) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.ends = ends;
+            this.rawBits = rawBits;
+            this.dataBits = dataBits;
+        }
+
+        /**
+         * Returns the same segment, where the block ends at {@code index}-th end of stream magic number, or where the
+         * next block starts if there are not so many of them
+         */
+        Segment endingAt(int index) {
+            return new Segment(bytes, offset, ends, rawBits, index < ends.length ? ends[index] : rawBits);
+        }
+
+        long crc() {
+            long crc = 0;
+            for (int i = 0; i < CRC_BITS; i++) {
+                long bit = offset + MAGIC_BITS + i;
+                crc = (crc << 1) | ((bytes[(int) (bit >>> 3)] >>> (7 - (bit & 7))) & 1);
+            }
+            return crc;
+        }
+    }
+
+    private class Block {
+        final Segment segment;
+        final Execution<byte[]> execution;
+
+        Block(final Segment segment) throws ExecutionException {
+            this.segment = segment;
+            this.execution = service.execute(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return decompress(Collections.singletonList(segment));
+                }
+            });
+        }
+
+        void terminate() {
+            if (!execution.isFinished()) {
+                try {
+                    execution.terminate();
+                } catch (ExecutionException ignore) {
+                    // result is not needed anymore
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes bits into a byte array, most significant bit first
+     */
+    private static class BitWriter {
+        private final byte[] bytes;
+        private long length;
+
+        BitWriter(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void write(long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                writeBit((int) (value >>> i) & 1);
+            }
+        }
+
+        void copy(byte[] source, int offset, long count) {
+            long copied = 0;
+            while (copied < count && (length & 7) != 0) {
+                writeBit(bit(source, offset + copied++));
+            }
+            // aligned output, whole bytes are shifted at once
+            while (count - copied >= 8) {
+                long from = offset + copied;
+                int index = (int) (from >>> 3);
+                int shift = (int) (from & 7);
+                int value = source[index] & 0xff;
+                if (shift != 0) {
+                    value = ((value << shift) | ((source[index + 1] & 0xff) >>> (8 - shift))) & 0xff;
+                }
+                bytes[(int) (length >>> 3)] = (byte) value;
+                length += 8;
+                copied += 8;
+            }
+            while (copied < count) {
+                writeBit(bit(source, offset + copied++));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((length + 7) >>> 3));
+        }
+
+        private void writeBit(int bit) {
+            if (bit != 0) {
+                bytes[(int) (length >>> 3)] |= 0x80 >>> (length & 7);
+            }
+            length++;
+        }
+
+        private static int bit(byte[] source, long position) {
+            return (source[(int) (position >>> 3)] >>> (7 - (position & 7))) & 1;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.ExecutionService;
+
+/**
+ * Input stream that reads underlying stream in a separate thread, ahead of the consumer. This allows to decompress data
+ * while the consumer processes the data read before, for instance writes them into files. Read chunks are passed
+ * through a bounded queue, so at most {@code capacity} chunks are read ahead.
+ *
+ * If the execution service runs the reader in the thread creating the stream, for instance because all its threads are
+ * busy, no data are read ahead, as no one would consume them, and the stream reads the underlying stream directly.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ReadAheadInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final byte[] END = new byte[0];
+
+    private final InputStream source;
+    private final BlockingQueue<byte[]> chunks;
+    private final Execution<Void> reader;
+
+    private volatile boolean closed;
+    private volatile boolean inline;
+    private volatile IOException failure;
+
+    private byte[] chunk = new byte[0];
+    private int position;
+
+    ReadAheadInputStream(InputStream source, int capacity, ExecutionService service) throws ExecutionException {
+        this.source = source;
+        this.chunks = new ArrayBlockingQueue<byte[]>(capacity);
+        final Thread creator = Thread.currentThread();
+        this.reader = service.execute(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (Thread.currentThread() == creator) {
+                    inline = true;
+                    return null;
+                }
+                readAhead();
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (inline) {
+            return source.read();
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (inline) {
+            return source.read(b, off, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (inline) {
+            return source.available();
+        }
+        return chunk.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunks.clear();
+        if (!reader.isFinished()) {
+            try {
+                reader.terminate();
+            } catch (ExecutionException ignore) {
+                // reader stops itself once it notices the stream was closed
+            }
+        }
+        source.close();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream was closed");
+        }
+        while (position == chunk.length) {
+            if (chunk == END) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Interrupted while waiting for data to be read ahead");
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    private void readAhead() throws InterruptedException {
+        try {
+            while (!closed) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int length = 0;
+                int read = 0;
+                while (length < buffer.length && (read = source.read(buffer, length, buffer.length - length)) != -1) {
+                    length += read;
+                }
+                if (length > 0) {
+                    put(length == buffer.length ? buffer : Arrays.copyOf(buffer, length));
+                }
+                if (read == -1) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException("Unable to read data ahead", e);
+        } finally {
+            put(END);
+        }
+    }
+
+    private void put(byte[] chunk) throws InterruptedException {
+        while (!closed && !chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            // wait for the consumer, unless it closed the stream
+        }
+    }
+}
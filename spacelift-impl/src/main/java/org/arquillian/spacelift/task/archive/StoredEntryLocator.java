@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+/**
+ * Locates data of entries stored uncompressed in a zip file, which {@link ZipFile} does not expose. Only the central
+ * directory and local headers of stored entries are read. Entries of Zip64 archives, encrypted entries and entries
+ * sharing the same name are not located, these have to be read by {@link ZipFile}.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class StoredEntryLocator {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final int CFH_SIGNATURE = 0x02014b50;
+    private static final int CFH_LENGTH = 46;
+    private static final int LFH_SIGNATURE = 0x04034b50;
+    private static final int LFH_LENGTH = 30;
+    private static final int ENCRYPTED_FLAG = 1;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+
+    private final FileChannel archive;
+    // data offsets by raw entry names
+    private final Map<String, Long> offsets = new HashMap<String, Long>();
+
+    StoredEntryLocator(FileChannel archive) throws IOException {
+        this.archive = archive;
+        locate();
+    }
+
+    /**
+     * Returns position of data of the entry in the archive, or {@code -1} if the entry is not stored or it was not
+     * located
+     */
+    long dataOffset(ZipArchiveEntry entry) {
+        if (entry.getMethod() != ZipEntry.STORED) {
+            return -1;
+        }
+        Long offset = offsets.get(key(entry.getRawName()));
+        return offset == null ? -1 : offset;
+    }
+
+    private void locate() throws IOException {
+        long size = archive.size();
+        int tailLength = (int) Math.min(size, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+        ByteBuffer tail = read(size - tailLength, tailLength);
+        int eocd = -1;
+        for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd == -1) {
+            return;
+        }
+
+        long directorySize = tail.getInt(eocd + 12) & 0xffffffffL;
+        long directoryOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+        if (directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC || directoryOffset + directorySize > size) {
+            return;
+        }
+
+        ByteBuffer directory = read(directoryOffset, (int) directorySize);
+        Set<String> names = new HashSet<String>();
+        Set<String> ambiguous = new HashSet<String>();
+        int position = 0;
+        while (position + CFH_LENGTH <= directorySize && directory.getInt(position) == CFH_SIGNATURE) {
+            int flags = directory.getShort(position + 8) & 0xffff;
+            int method = directory.getShort(position + 10) & 0xffff;
+            long compressedSize = directory.getInt(position + 20) & 0xffffffffL;
+            int nameLength = directory.getShort(position + 28) & 0xffff;
+            int extraLength = directory.getShort(position + 30) & 0xffff;
+            int commentLength = directory.getShort(position + 32) & 0xffff;
+            long headerOffset = directory.getInt(position + 42) & 0xffffffffL;
+
+            byte[] name = new byte[nameLength];
+            directory.position(position + CFH_LENGTH);
+            directory.get(name);
+            String key = key(name);
+            if (!names.add(key)) {
+                ambiguous.add(key);
+            }
+
+            if (method == ZipEntry.STORED && (flags & ENCRYPTED_FLAG) == 0 && compressedSize != ZIP64_MAGIC
+                && headerOffset != ZIP64_MAGIC) {
+                long dataOffset = localDataOffset(headerOffset);
+                if (dataOffset != -1 && dataOffset + compressedSize <= size) {
+                    offsets.put(key, dataOffset);
+                }
+            }
+            position += CFH_LENGTH + nameLength + extraLength + commentLength;
+        }
+        offsets.keySet().removeAll(ambiguous);
+    }
+
+    private long localDataOffset(long headerOffset) throws IOException {
+        ByteBuffer header = read(headerOffset, LFH_LENGTH);
+        if (header.getInt(0) != LFH_SIGNATURE) {
+            return -1;
+        }
+        // lengths in local header might differ from those in central directory
+        return headerOffset + LFH_LENGTH + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (archive.read(buffer, position + buffer.position()) == -1) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+        }
+        return buffer;
+    }
+
+    private static String key(byte[] rawName) {
+        try {
+            return new String(rawName, "ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
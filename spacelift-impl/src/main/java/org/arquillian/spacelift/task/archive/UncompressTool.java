@@ -16,13 +16,17 @@
  */
 package org.arquillian.spacelift.task.archive;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
@@ -40,12 +44,23 @@ public abstract class UncompressTool extends Task<File, File> {
     protected static final String CUT_DIR_PATTERN = "^/?([^/]+)/(.*)";
     protected static final String CUT_DIR_REPLACEMENT = "$2";
 
-    private static final int BUFFER = 2048;
+    private static final int BUFFER = 64 * 1024;
 
     private List<ReplacementTuple<?>> replacements = new ArrayList<ReplacementTuple<?>>();
 
     private File dest;
 
+    private int parallelism = 1;
+
+    private final EntryFilter filter = new EntryFilter();
+
+    private boolean incremental;
+
+    private boolean prune;
+
+    // manifest of the extraction in progress, if incremental
+    private volatile ExtractionManifest manifest;
+
     protected abstract ArchiveInputStream compressedInputStream(InputStream compressedFile);
 
     protected abstract int permissionsMode(ArchiveEntry archiveEntry);
@@ -99,47 +114,300 @@ public abstract class UncompressTool extends Task<File, File> {
         return this;
     }
 
+    /**
+     * Extracts only entries matching the glob, if there are any includes. Globs are matched against whole entry names
+     * in the archive, before they are remapped. {@code *} matches any characters but slash, {@code **} matches any
+     * characters including slashes and {@code ?} matches a single character but slash. A glob ending with slash
+     * matches everything in the directory, for instance <code>&#42;/bin/</code> matches content of {@code bin}
+     * directory in any top level directory. Entries are filtered by their headers, so data of rejected entries are
+     * not extracted. Tar data compressed by gzip or bzip2 still has to be decompressed to be skipped.
+     *
+     * @param glob glob matching entries to be extracted
+     * @return
+     */
+    public UncompressTool include(String glob) {
+        filter.include(EntryFilter.glob(glob));
+        return this;
+    }
+
+    /**
+     * Does not extract entries matching the glob, see {@link #include(String)} for glob syntax. Excludes take
+     * precedence over includes.
+     *
+     * @param glob glob matching entries not to be extracted
+     * @return
+     */
+    public UncompressTool exclude(String glob) {
+        filter.exclude(EntryFilter.glob(glob));
+        return this;
+    }
+
+    /**
+     * Extracts only entries matching the regular expression, if there are any includes. Regular expression has to match
+     * whole entry name in the archive, before it is remapped.
+     *
+     * @param regex regular expression matching entries to be extracted
+     * @return
+     */
+    public UncompressTool includeRegex(String regex) {
+        filter.include(Pattern.compile(regex));
+        return this;
+    }
+
+    /**
+     * Does not extract entries matching the regular expression, see {@link #includeRegex(String)}. Excludes take
+     * precedence over includes.
+     *
+     * @param regex regular expression matching entries not to be extracted
+     * @return
+     */
+    public UncompressTool excludeRegex(String regex) {
+        filter.exclude(Pattern.compile(regex));
+        return this;
+    }
+
+    /**
+     * Does not extract files bigger than the given size, as stated in headers of entries.
+     *
+     * @param bytes maximal size of extracted file
+     * @return
+     */
+    public UncompressTool maxEntrySize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Maximal entry size must not be negative, was " + bytes);
+        }
+        filter.maxSize(bytes);
+        return this;
+    }
+
+    /**
+     * Extracts only entries that are missing in the destination or changed since the last incremental extraction into
+     * the same destination. Extracted files are recorded in a manifest stored next to the destination directory, as
+     * {@code <destination>.manifest}. An entry is extracted again if its size, checksum or modification time or mode
+     * changed, or if the file it was extracted to was modified or deleted.
+     *
+     * @param incremental {@code true} to skip entries that were already extracted
+     * @return
+     */
+    public UncompressTool incremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Deletes files recorded by the previous incremental extraction that are no longer extracted, because they were
+     * removed from the archive or they are rejected by filters. Files not extracted by this tool are never deleted. Has
+     * effect only in incremental mode, see {@link #incremental(boolean)}.
+     *
+     * @param prune {@code true} to delete stale files
+     * @return
+     */
+    public UncompressTool prune(boolean prune) {
+        this.prune = prune;
+        return this;
+    }
+
+    /**
+     * Sets how many entries can be extracted at the same time, if the archive format allows that, or how many threads
+     * can decompress the archive. The default is {@code 1}, which extracts entries one by one in the thread executing
+     * the tool. Parallel work is executed by the execution service the tool was created with.
+     *
+     * @param parallelism maximal number of entries extracted at the same time
+     * @return
+     */
+    public UncompressTool parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Extracts entries in parallel, using as many threads as there are available processors, if the archive format
+     * allows that.
+     *
+     * @return
+     */
+    public UncompressTool parallel() {
+        return parallelism(Runtime.getRuntime().availableProcessors());
+    }
+
     @Override
     protected File process(File input) throws Exception {
+        ExtractionManifest manifest = incremental ? new ExtractionManifest(this.dest) : null;
+        this.manifest = manifest;
+        try {
+            extractEntries(input);
+        } finally {
+            this.manifest = null;
+        }
+
+        // manifest is kept untouched if extraction failed, files extracted since are not recorded in there
+        if (manifest != null) {
+            if (prune) {
+                manifest.prune();
+            }
+            manifest.store();
+        }
+        return this.dest;
+    }
+
+    /**
+     * Extracts all accepted entries of the archive. Formats that allow a faster access to entries override this.
+     *
+     * @param input the archive
+     * @throws Exception
+     */
+    void extractEntries(File input) throws Exception {
         ArchiveEntry entry = null;
 
         /** Read entries using the getNextEntry method **/
 
         ArchiveInputStream compressedInputStream = compressedInputStream(new FileInputStream(input));
+        try {
+            while ((entry = compressedInputStream.getNextEntry()) != null) {
+                // data of rejected entry are skipped by the next call
+                if (accepts(entry)) {
+                    extract(entry, compressedInputStream);
+                }
+            }
+        } finally {
+            compressedInputStream.close();
+        }
+    }
 
-        while ((entry = compressedInputStream.getNextEntry()) != null) {
-
-            File file = new File(this.dest, remapEntryName(entry.getName()));
+    /**
+     * Extracts an entry into destination directory. Can be called concurrently for different entries.
+     *
+     * @param entry the entry
+     * @param data stream positioned at the data of the entry, it is not closed
+     * @throws IOException
+     */
+    void extract(ArchiveEntry entry, InputStream data) throws IOException {
+        String name = remapEntryName(entry.getName());
+        File file = prepare(entry, name);
+        if (file == null) {
+            return;
+        }
 
-            if (entry.isDirectory()) {
-                file.mkdirs();
-            } else {
+        int count;
+        byte buffer[] = new byte[BUFFER];
 
-                if (!file.getParentFile().exists()) {
-                    file.getParentFile().mkdirs();
-                }
+        OutputStream dest = new FileOutputStream(file);
+        try {
+            while ((count = data.read(buffer, 0, BUFFER)) != -1) {
+                dest.write(buffer, 0, count);
+            }
+        } finally {
+            dest.close();
+        }
 
-                int count;
-                byte data[] = new byte[BUFFER];
+        applyPermissions(entry, file);
+        record(entry, name, file);
+    }
 
-                FileOutputStream fos = new FileOutputStream(file);
-                BufferedOutputStream dest = new BufferedOutputStream(fos, BUFFER);
-                while ((count = compressedInputStream.read(data, 0, BUFFER)) != -1) {
-                    dest.write(data, 0, count);
-                }
-                dest.close();
+    /**
+     * Extracts an entry stored uncompressed in the archive file. Data are transferred between file channels, so the
+     * operating system can copy them without passing them through the JVM. Can be called concurrently for different
+     * entries, position of {@code archive} is not changed.
+     *
+     * @param entry the entry
+     * @param archive channel of the archive file, it is not closed
+     * @param position position of the data of the entry in the archive file
+     * @param size size of the data of the entry
+     * @throws IOException
+     */
+    void extract(ArchiveEntry entry, FileChannel archive, long position, long size) throws IOException {
+        String name = remapEntryName(entry.getName());
+        File file = prepare(entry, name);
+        if (file == null) {
+            return;
+        }
 
-                int permissionsMode = permissionsMode(entry);
-                if (permissionsMode != 0) {
-                    FilePermission filePermission = PermissionsUtil.toFilePermission(permissionsMode);
-                    PermissionsUtil.applyPermission(file, filePermission);
+        FileOutputStream dest = new FileOutputStream(file);
+        try {
+            FileChannel target = dest.getChannel();
+            long transferred = 0;
+            while (transferred < size) {
+                long count = archive.transferTo(position + transferred, size - transferred, target);
+                if (count <= 0) {
+                    throw new IOException("Archive is truncated, unable to extract " + entry.getName());
                 }
+                transferred += count;
             }
+        } finally {
+            dest.close();
         }
 
-        compressedInputStream.close();
+        applyPermissions(entry, file);
+        record(entry, name, file);
+    }
 
-        return this.dest;
+    /**
+     * Returns a description of the entry that changes whenever its content might change. Uses modification time of the
+     * entry, formats storing a checksum of entries override this.
+     */
+    String checksum(ArchiveEntry entry) {
+        Date lastModified = entry.getLastModifiedDate();
+        return "mtime:" + (lastModified == null ? -1 : lastModified.getTime());
+    }
+
+    /**
+     * Creates directory for the entry, returns file to be written or {@code null} if the entry is a directory or it is
+     * up to date
+     */
+    private File prepare(ArchiveEntry entry, String name) {
+        File file = new File(this.dest, name);
+
+        if (entry.isDirectory()) {
+            file.mkdirs();
+            return null;
+        }
+
+        ExtractionManifest manifest = this.manifest;
+        if (manifest != null && manifest.isUpToDate(name, entryRecord(entry), file)) {
+            return null;
+        }
+
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        return file;
+    }
+
+    private void record(ArchiveEntry entry, String name, File file) {
+        ExtractionManifest manifest = this.manifest;
+        if (manifest != null) {
+            manifest.extracted(name, entryRecord(entry), file);
+        }
+    }
+
+    private String entryRecord(ArchiveEntry entry) {
+        return entry.getSize() + "/" + checksum(entry) + "/" + Integer.toOctalString(permissionsMode(entry));
+    }
+
+    private void applyPermissions(ArchiveEntry entry, File file) {
+        int permissionsMode = permissionsMode(entry);
+        if (permissionsMode != 0) {
+            FilePermission filePermission = PermissionsUtil.toFilePermission(permissionsMode);
+            PermissionsUtil.applyPermission(file, filePermission);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the entry is to be extracted
+     */
+    boolean accepts(ArchiveEntry entry) {
+        return filter.accepts(entry);
+    }
+
+    File getDestination() {
+        return dest;
+    }
+
+    int getParallelism() {
+        return parallelism;
     }
 
     private String remapEntryName(String entryName) {
@@ -150,7 +418,7 @@ public abstract class UncompressTool extends Task<File, File> {
 
         String finalName = entryName.replaceAll("\\\\", "/");
         for (ReplacementTuple<?> remap : replacements) {
-            finalName = finalName.replaceAll(remap.getRegex(), remap.getReplacement());
+            finalName = remap.getPattern().matcher(finalName).replaceAll(remap.getReplacement());
         }
         return finalName;
     }
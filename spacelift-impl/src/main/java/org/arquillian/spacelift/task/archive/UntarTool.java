@@ -17,8 +17,11 @@
 package org.arquillian.spacelift.task.archive;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
@@ -27,10 +30,15 @@ import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.ExecutionService;
 
 /**
  * Untar Tool
  *
+ * Tar entries are always extracted one by one, {@link #parallelism(int)} applies to decompression. Bzip2 blocks are
+ * decompressed in parallel, gzip data are inflated in a separate thread, ahead of extraction of entries. Entries of an
+ * uncompressed archive are copied from the archive file by the operating system.
+ *
  * @author <a href="asotobu@gmail.com">Alex Soto</a>
  *
  */
@@ -39,36 +47,35 @@ public class UntarTool extends UncompressTool {
     private enum Compression {
         GZIP {
             @Override
-            public ArchiveInputStream wrap(BufferedInputStream input) {
-                GzipCompressorInputStream gzIn;
-                try {
-                    gzIn = new GzipCompressorInputStream(input);
-                    return new TarArchiveInputStream(gzIn);
-                } catch (IOException e) {
-                    throw new ExecutionException(e);
+            public InputStream decompress(BufferedInputStream input, int parallelism, ExecutionService service)
+                throws IOException {
+                InputStream gzIn = new GzipCompressorInputStream(input);
+                if (parallelism > 1) {
+                    // deflate has no independent blocks, inflation is at least done while entries are written
+                    gzIn = new ReadAheadInputStream(gzIn, parallelism * 4, service);
                 }
+                return gzIn;
             }
         },
         BZIP2 {
             @Override
-            public ArchiveInputStream wrap(BufferedInputStream input) {
-                BZip2CompressorInputStream bzip2;
-                try {
-                    bzip2 = new BZip2CompressorInputStream(input);
-                    return new TarArchiveInputStream(bzip2);
-                } catch (IOException e) {
-                    throw new ExecutionException(e);
+            public InputStream decompress(BufferedInputStream input, int parallelism, ExecutionService service)
+                throws IOException {
+                if (parallelism > 1) {
+                    return new ParallelBZip2InputStream(input, parallelism, service);
                 }
+                return new BZip2CompressorInputStream(input);
             }
         },
         NONE {
             @Override
-            public ArchiveInputStream wrap(BufferedInputStream input) {
-                return new TarArchiveInputStream(input);
+            public InputStream decompress(BufferedInputStream input, int parallelism, ExecutionService service) {
+                return input;
             }
         };
 
-        public abstract ArchiveInputStream wrap(BufferedInputStream input);
+        public abstract InputStream decompress(BufferedInputStream input, int parallelism, ExecutionService service)
+            throws IOException;
     }
 
     private Compression compression = Compression.GZIP;
@@ -83,12 +90,46 @@ public class UntarTool extends UncompressTool {
         return this;
     }
 
+    @Override
+    void extractEntries(File input) throws Exception {
+        if (compression != Compression.NONE) {
+            super.extractEntries(input);
+            return;
+        }
+
+        // entries of an uncompressed tar are copied directly from the archive file, tar stream only reads headers and
+        // skips the data, so position of the file is the position of data of the current entry
+        FileInputStream in = new FileInputStream(input);
+        try {
+            FileChannel channel = in.getChannel();
+            TarArchiveInputStream tarIn = new TarArchiveInputStream(in);
+            TarArchiveEntry entry;
+            while ((entry = tarIn.getNextTarEntry()) != null) {
+                if (!accepts(entry)) {
+                    // data are skipped by seeking
+                    continue;
+                }
+                if (entry.isFile() && !entry.isGNUSparse()) {
+                    extract(entry, channel, channel.position(), entry.getSize());
+                } else {
+                    extract(entry, tarIn);
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
     @Override
     protected ArchiveInputStream compressedInputStream(InputStream compressedFile) {
 
         BufferedInputStream in = new BufferedInputStream(compressedFile);
 
-        return compression.wrap(in);
+        try {
+            return new TarArchiveInputStream(compression.decompress(in, getParallelism(), getExecutionService()));
+        } catch (IOException e) {
+            throw new ExecutionException(e);
+        }
     }
 
     @Override
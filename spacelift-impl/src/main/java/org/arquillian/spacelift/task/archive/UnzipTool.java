@@ -17,7 +17,14 @@
 package org.arquillian.spacelift.task.archive;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
@@ -25,16 +32,61 @@ import org.apache.commons.compress.archivers.zip.AsiExtraField;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.commons.compress.archivers.zip.ZipExtraField;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.task.InjectTask;
+import org.arquillian.spacelift.task.Task;
 
 /**
  * Unzip Tool
  *
+ * Entries are located by central directory of the archive, so they can be extracted in parallel, see
+ * {@link #parallelism(int)}. Data of stored entries are copied from the archive file by the operating system.
+ *
  * @author <a href="asotobu@gmail.com">Alex Soto</a>
  *
  */
 public class UnzipTool extends UncompressTool {
 
+    @Override
+    void extractEntries(File input) throws Exception {
+        ZipFile zipFile = new ZipFile(input);
+        // stored entries are copied directly from the archive file
+        FileInputStream archive = new FileInputStream(input);
+        try {
+            List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>();
+            Enumeration<ZipArchiveEntry> allEntries = zipFile.getEntriesInPhysicalOrder();
+            while (allEntries.hasMoreElements()) {
+                ZipArchiveEntry entry = allEntries.nextElement();
+                if (!accepts(entry)) {
+                    // central directory allows not to touch data of rejected entries at all
+                    continue;
+                }
+                if (entry.isDirectory()) {
+                    extract(entry, null);
+                } else {
+                    entries.add(entry);
+                }
+            }
+
+            EntryExtraction extraction = new EntryExtraction(zipFile, archive.getChannel());
+            int parallelism = getParallelism();
+            if (parallelism > 1 && entries.size() > 1) {
+                // a few batches per thread keep threads busy even if entry sizes differ
+                int batchSize = Math.max(1, entries.size() / (parallelism * 4));
+                new InjectTask<List<ZipArchiveEntry>>().passToNext(entries)
+                    .then(Task.<ZipArchiveEntry, Object> map(getExecutionService()).eachBatch(batchSize, extraction)
+                        .parallelism(parallelism))
+                    .execute().await();
+            } else {
+                extraction.process(entries);
+            }
+        } finally {
+            archive.close();
+            ZipFile.closeQuietly(zipFile);
+        }
+    }
+
     @Override
     protected ArchiveInputStream compressedInputStream(InputStream compressedFile) {
         BufferedInputStream in = new BufferedInputStream(compressedFile);
@@ -53,10 +105,52 @@ public class UnzipTool extends UncompressTool {
                     return asiExtraField.getMode();
                 }
             }
+            // mode stored in central directory, only available if the archive is read by ZipFile
+            return zipArchiveEntry.getUnixMode();
         } else {
             throw new ExecutionException("No ZipEntry has been passed to a Unzip method.");
         }
+    }
 
-        return 0;
+    @Override
+    String checksum(ArchiveEntry archiveEntry) {
+        // CRC is stored in central directory for every entry
+        long crc = ((ZipArchiveEntry) archiveEntry).getCrc();
+        return crc == -1 ? super.checksum(archiveEntry) : "crc:" + Long.toHexString(crc);
+    }
+
+    /**
+     * Extracts a list of entries from a zip file. Zip file allows reading of different entries concurrently, stored
+     * entries are transferred by positional reads of the archive channel, which are safe to be done concurrently as well.
+     */
+    private class EntryExtraction extends Task<List<ZipArchiveEntry>, Object> {
+
+        private final ZipFile zipFile;
+        private final FileChannel archive;
+        private final StoredEntryLocator locator;
+
+        EntryExtraction(ZipFile zipFile, FileChannel archive) throws IOException {
+            this.zipFile = zipFile;
+            this.archive = archive;
+            this.locator = new StoredEntryLocator(archive);
+        }
+
+        @Override
+        protected Object process(List<ZipArchiveEntry> input) throws IOException {
+            for (ZipArchiveEntry entry : input) {
+                long dataOffset = zipFile.canReadEntryData(entry) ? locator.dataOffset(entry) : -1;
+                if (dataOffset != -1) {
+                    extract(entry, archive, dataOffset, entry.getCompressedSize());
+                } else {
+                    InputStream data = zipFile.getInputStream(entry);
+                    try {
+                        extract(entry, data);
+                    } finally {
+                        data.close();
+                    }
+                }
+            }
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
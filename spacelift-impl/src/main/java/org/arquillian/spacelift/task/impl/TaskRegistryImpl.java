@@ -54,30 +54,35 @@ public class TaskRegistryImpl implements TaskRegistry {
     @Override
     public <IN, OUT, TASK extends Task<? super IN, OUT>> TASK find(Class<TASK> taskType) throws InvalidTaskException {
 
+        TaskFactory<?, ?, ?> factory = classRegistry.get(taskType);
+
         // if there is no such class, try to register default factory
-        if (!classRegistry.containsKey(taskType)) {
+        if (factory == null) {
             register(taskType, new NoArgConstructorTaskFactory(taskType));
+            factory = classRegistry.get(taskType);
         }
 
-        return (TASK) classRegistry.get(taskType).create();
+        return (TASK) factory.create();
     }
 
     @Override
     public Task<?, ?> find(String alias) throws InvalidTaskException {
 
-        if (!aliasRegistry.containsKey(alias)) {
+        TaskFactory<?, ?, ?> factory = aliasRegistry.get(alias);
+        if (factory == null) {
             throw new InvalidTaskException("No task with alias {0} was registered.", alias);
         }
-        return aliasRegistry.get(alias).create();
+        return factory.create();
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public <IN, OUT> Task<IN, OUT> find(String alias, Class<IN> inType, Class<OUT> outType) throws InvalidTaskException {
 
-        if (!aliasRegistry.containsKey(alias)) {
+        TaskFactory<?, ?, ?> factory = aliasRegistry.get(alias);
+        if (factory == null) {
             throw new InvalidTaskException("No task with alias {0} was registered.", alias);
         }
-        return (Task<IN, OUT>) aliasRegistry.get(alias).create();
+        return (Task<IN, OUT>) factory.create();
     }
 }
@@ -16,26 +16,36 @@
  */
 package org.arquillian.spacelift.task.io;
 
-import org.arquillian.spacelift.task.Task;
-import org.arquillian.spacelift.util.CharsetUtil;
-
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.arquillian.spacelift.task.InjectTask;
+import org.arquillian.spacelift.task.Task;
+import org.arquillian.spacelift.util.CharsetUtil;
+
 /**
  * Task for reading text files. Its input is a {@link List} of {@link File}s and it outputs {@link Map} with the
  * files as keys and their contents as values.
+ *
+ * Files are read one by one, unless {@link #parallelism(int)} is set. Files are read into a buffer of their size and
+ * decoded once. Memory mapping of large files can be enabled by {@link #mappedThreshold(long)}.
  */
 public class FileReader extends Task<List<File>, Map<File, String>> {
 
     private Charset charset = CharsetUtil.getUtf8OrDefault();
+    private int parallelism = 1;
+    private long mappedThreshold = Long.MAX_VALUE;
 
     /**
      * Sets the charset which will be used to read all the files. The default charset is UTF8 or the system's default.
@@ -49,8 +59,49 @@ public class FileReader extends Task<List<File>, Map<File, String>> {
         return this;
     }
 
+    /**
+     * Sets how many files can be read at the same time. The default is {@code 1}, which reads files one by one in the
+     * thread executing the task.
+     *
+     * @param parallelism Maximal number of files read at the same time.
+     * @return The same instance of FileReader.
+     */
+    public FileReader parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Reads files in parallel, using as many threads as there are available processors.
+     *
+     * @return The same instance of FileReader.
+     */
+    public FileReader parallel() {
+        return parallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets size of a file, in bytes, from which the file is memory mapped instead of read into a buffer. Files are not
+     * mapped by default. A mapped file stays mapped until the mapping is garbage collected, which might prevent it from
+     * being written or deleted meanwhile, for instance on Windows.
+     *
+     * @param mappedThreshold The size in bytes.
+     * @return The same instance of FileReader.
+     */
+    public FileReader mappedThreshold(long mappedThreshold) {
+        this.mappedThreshold = mappedThreshold;
+        return this;
+    }
+
     @Override
     protected Map<File, String> process(List<File> input) throws Exception {
+        if (parallelism > 1 && input.size() > 1) {
+            return readInParallel(input);
+        }
+
         Map<File, String> fileContents = new HashMap<File, String>();
         for (File file : input) {
             String content = readFile(file);
@@ -59,23 +110,71 @@ public class FileReader extends Task<List<File>, Map<File, String>> {
         return fileContents;
     }
 
+    private Map<File, String> readInParallel(List<File> input) {
+        FileReader reader = new FileReader().charset(charset).mappedThreshold(mappedThreshold);
+        // a few batches per thread keep threads busy even if file sizes differ
+        int batchSize = Math.max(1, input.size() / (parallelism * 4));
+
+        List<Map<File, String>> parts = new InjectTask<List<File>>().passToNext(input)
+            .then(Task.<File, Map<File, String>> map(getExecutionService()).eachBatch(batchSize, reader)
+                .parallelism(parallelism))
+            .execute().await();
+
+        Map<File, String> fileContents = new HashMap<File, String>();
+        for (Map<File, String> part : parts) {
+            fileContents.putAll(part);
+        }
+        return fileContents;
+    }
+
     private String readFile(File file) throws IOException {
-        InputStream inputStream = null;
-        ByteArrayOutputStream contentStream = new ByteArrayOutputStream();
+        long length = file.length();
+        if (length >= mappedThreshold) {
+            return readMapped(file);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("File " + file.getAbsolutePath() + " is too large to be read, its size is " + length);
+        }
+
+        byte[] content = new byte[(int) length];
+        InputStream inputStream = new FileInputStream(file);
         try {
-            inputStream = new FileInputStream(file);
-            byte[] buffer = new byte[4096];
+            int offset = 0;
             int read;
+            while (offset < content.length && (read = inputStream.read(content, offset, content.length - offset)) != -1) {
+                offset += read;
+            }
+            int next = offset < content.length ? -1 : inputStream.read();
+            if (next == -1) {
+                return new String(content, 0, offset, charset);
+            }
+
+            // file is longer than reported, for instance it is still being written or it is a special file
+            ByteArrayOutputStream contentStream = new ByteArrayOutputStream(content.length + 4096);
+            contentStream.write(content, 0, offset);
+            contentStream.write(next);
+            byte[] buffer = new byte[4096];
             while ((read = inputStream.read(buffer, 0, buffer.length)) != -1) {
                 contentStream.write(buffer, 0, read);
             }
-            contentStream.flush();
+            return new String(contentStream.toByteArray(), charset);
         } finally {
-            if (inputStream != null) {
-                inputStream.close();
-            }
+            inputStream.close();
         }
-        return new String(contentStream.toByteArray(), charset);
     }
 
+    private String readMapped(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(buffer)
+                .toString();
+        } finally {
+            randomAccessFile.close();
+        }
+    }
 }
@@ -20,9 +20,15 @@ import org.arquillian.spacelift.task.Task;
 import org.arquillian.spacelift.util.CharsetUtil;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +36,13 @@ import java.util.Map;
 /**
  * Task for writing text to files. Its input is a {@link Map} of {@link File}s as keys and {@link String}s as values
  * and it outputs {@link List} of the files written.
+ *
+ * With {@link #writeIfChanged()}, files that already have the given content are neither encoded nor written, so their
+ * modification time is preserved, and only the files that were written are returned.
  */
 public class FileWriter extends Task<Map<File, String>, List<File>> {
     private Charset charset = CharsetUtil.getUtf8OrDefault();
+    private boolean writeIfChanged;
 
     /**
      * Sets the charset which will be used to write all the files. The default charset is UTF8 or the system's default.
@@ -46,11 +56,25 @@ public class FileWriter extends Task<Map<File, String>, List<File>> {
         return this;
     }
 
+    /**
+     * Skips files that already have the content to be written. The existing content is decoded and compared with the
+     * new one, which is cheaper than encoding and writing it.
+     *
+     * @return The same instance of FileWriter.
+     */
+    public FileWriter writeIfChanged() {
+        this.writeIfChanged = true;
+        return this;
+    }
+
     @Override
     protected List<File> process(Map<File, String> input) throws Exception {
         List<File> files = new ArrayList<File>();
         for (File file : input.keySet()) {
             String content = input.get(file);
+            if (writeIfChanged && hasContent(file, content)) {
+                continue;
+            }
 
             OutputStream outputStream = null;
             try {
@@ -70,4 +94,34 @@ public class FileWriter extends Task<Map<File, String>, List<File>> {
         }
         return files;
     }
+
+    private boolean hasContent(File file, String content) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        Reader reader = new InputStreamReader(new FileInputStream(file), charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT));
+        try {
+            char[] buffer = new char[8192];
+            int position = 0;
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                if (position + read > content.length()) {
+                    return false;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != content.charAt(position++)) {
+                        return false;
+                    }
+                }
+            }
+            return position == content.length();
+        } catch (CharacterCodingException e) {
+            // file cannot be decoded, so it cannot have the content
+            return false;
+        } finally {
+            reader.close();
+        }
+    }
 }
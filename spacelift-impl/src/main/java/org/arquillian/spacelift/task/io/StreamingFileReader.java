@@ -0,0 +1,59 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.io;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Map;
+
+import org.arquillian.spacelift.task.ChunkSink;
+import org.arquillian.spacelift.task.StreamingTask;
+import org.arquillian.spacelift.util.CharsetUtil;
+
+/**
+ * Streaming variant of {@link FileReader}. Its input is a stream of {@link File}s and it emits a {@link Map} with a
+ * single file and its content for every file read.
+ *
+ * Chained with {@link org.arquillian.spacelift.task.text.StreamingStringReplacementTask} and
+ * {@link StreamingFileWriter}, files are replaced and written while other files are still being read, and only a
+ * bounded number of file contents is held in memory.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class StreamingFileReader extends StreamingTask<File, Map<File, String>> {
+
+    private final FileReader reader = new FileReader();
+
+    /**
+     * Sets the charset which will be used to read all the files. The default charset is UTF8 or the system's default.
+     *
+     * @param charset The charset to be used.
+     * @return The same instance of StreamingFileReader.
+     * @see CharsetUtil#getUtf8OrDefault()
+     */
+    public StreamingFileReader charset(Charset charset) {
+        reader.charset(charset);
+        return this;
+    }
+
+    @Override
+    protected void process(File file, ChunkSink<Map<File, String>> output) throws Exception {
+        output.emit(reader.process(Collections.singletonList(file)));
+    }
+}
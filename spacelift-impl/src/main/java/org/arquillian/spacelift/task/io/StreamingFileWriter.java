@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.io;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import org.arquillian.spacelift.task.ChunkSink;
+import org.arquillian.spacelift.task.StreamingTask;
+import org.arquillian.spacelift.util.CharsetUtil;
+
+/**
+ * Streaming variant of {@link FileWriter}. Its input is a stream of {@link Map}s of {@link File}s as keys and
+ * {@link String}s as values and it emits the files written.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class StreamingFileWriter extends StreamingTask<Map<File, String>, File> {
+
+    private final FileWriter writer = new FileWriter();
+
+    /**
+     * Sets the charset which will be used to write all the files. The default charset is UTF8 or the system's default.
+     *
+     * @param charset The charset to be used.
+     * @return The same instance of StreamingFileWriter.
+     * @see CharsetUtil#getUtf8OrDefault()
+     */
+    public StreamingFileWriter charset(Charset charset) {
+        writer.charset(charset);
+        return this;
+    }
+
+    /**
+     * Skips files that already have the content to be written.
+     *
+     * @return The same instance of StreamingFileWriter.
+     * @see FileWriter#writeIfChanged()
+     */
+    public StreamingFileWriter writeIfChanged() {
+        writer.writeIfChanged();
+        return this;
+    }
+
+    @Override
+    protected void process(Map<File, String> contents, ChunkSink<File> output) throws Exception {
+        for (File file : writer.process(contents)) {
+            output.emit(file);
+        }
+    }
+}
@@ -31,7 +31,9 @@ import org.arquillian.spacelift.process.CommandBuilder;
 import org.arquillian.spacelift.process.ProcessInteraction;
 import org.arquillian.spacelift.process.ProcessInteractionBuilder;
 import org.arquillian.spacelift.process.ProcessResult;
+import org.arquillian.spacelift.process.StreamingProcessResult;
 import org.arquillian.spacelift.task.Task;
+import org.arquillian.spacelift.task.TaskCallable;
 
 /**
  * Tool that is able to execute an external, operating system dependent command.
@@ -54,15 +56,31 @@ public class CommandTool extends Task<Object, ProcessResult> {
     protected File workingDirectory;
     protected Map<String, String> environment;
     protected boolean isDaemon;
+    protected boolean interactPerCharacter;
+    protected OutputRetention outputRetention;
+    protected boolean separateErrorStream;
+    protected ProcessInteraction errorInteraction;
+    protected OutputRetention errorOutputRetention;
+
+    protected boolean sharedIoThreads;
 
     protected ProcessReference processRef;
 
+    // completion of the execution created by execute(), handed over to process() invoked by that execution
+    private static final ThreadLocal<CompletionHandover> completionHandover = new ThreadLocal<CompletionHandover>();
+
     public CommandTool() {
         this.interaction = ProcessInteractionBuilder.NO_INTERACTION;
         this.allowedExitCodes = new ArrayList<Integer>();
         this.workingDirectory = null;
         this.environment = new HashMap<String, String>();
         this.isDaemon = false;
+        this.interactPerCharacter = false;
+        this.outputRetention = OutputRetention.all();
+        this.separateErrorStream = false;
+        this.errorInteraction = ProcessInteractionBuilder.NO_INTERACTION;
+        this.errorOutputRetention = OutputRetention.all();
+        this.sharedIoThreads = false;
     }
 
     /**
@@ -144,6 +162,93 @@ public class CommandTool extends Task<Object, ProcessResult> {
         return this;
     }
 
+    /**
+     * Evaluates interaction after every character of the output instead of once per line. Output is by default read in
+     * chunks and interaction is applied to complete lines and to prompts the process stopped at. Use this only if the
+     * process writes prompts without trailing newline in several pieces.
+     *
+     * @return
+     */
+    public CommandTool interactPerCharacter() {
+        this.interactPerCharacter = true;
+        return this;
+    }
+
+    /**
+     * Sets how much of the process output is kept in {@link ProcessResult}. By default, whole output is kept in memory.
+     *
+     * @param outputRetention the retention policy
+     * @return
+     * @throws IllegalArgumentException if {@code outputRetention} is {@code null}
+     * @see OutputRetention
+     */
+    public CommandTool outputRetention(OutputRetention outputRetention) throws IllegalArgumentException {
+        Validate.notNull(outputRetention, "Output retention must not be null");
+        this.outputRetention = outputRetention;
+        return this;
+    }
+
+    /**
+     * Consumes output of the process by a small set of threads shared by all processes, instead of occupying a thread for
+     * the whole lifetime of the process. This allows running many processes in parallel. Interaction with the process
+     * might be delayed by up to a few milliseconds while the process is idle.
+     *
+     * @return
+     */
+    public CommandTool sharedIoThreads() {
+        this.sharedIoThreads = true;
+        return this;
+    }
+
+    /**
+     * Consumes error output of the process separately from the standard output. By default, error output is merged into
+     * standard output. If separated, each output is read by its own thread, has its own interaction and retention and error
+     * output is available via {@link StreamingProcessResult#errorOutput()}.
+     *
+     * @return
+     */
+    public CommandTool separateErrorStream() {
+        this.separateErrorStream = true;
+        return this;
+    }
+
+    /**
+     * Sets interaction applied to the error output of the command. Implies {@link #separateErrorStream()}. By default, no
+     * interaction is applied to the separated error output, it is only retained.
+     *
+     * @param interaction the interaction
+     * @return
+     */
+    public CommandTool errorInteraction(ProcessInteraction interaction) {
+        this.errorInteraction = interaction;
+        this.separateErrorStream = true;
+        return this;
+    }
+
+    /**
+     * Sets interaction applied to the error output of the command. Implies {@link #separateErrorStream()}.
+     *
+     * @param interactionBuilder the interaction
+     * @return
+     */
+    public CommandTool errorInteraction(ProcessInteractionBuilder interactionBuilder) {
+        return errorInteraction(interactionBuilder.build());
+    }
+
+    /**
+     * Sets how much of the error output is kept in {@link ProcessResult}. Implies {@link #separateErrorStream()}.
+     *
+     * @param outputRetention the retention policy
+     * @return
+     * @throws IllegalArgumentException if {@code outputRetention} is {@code null}
+     */
+    public CommandTool errorOutputRetention(OutputRetention outputRetention) throws IllegalArgumentException {
+        Validate.notNull(outputRetention, "Error output retention must not be null");
+        this.errorOutputRetention = outputRetention;
+        this.separateErrorStream = true;
+        return this;
+    }
+
     /**
      * Sets the command. Overrides all previous parameters and program name
      *
@@ -281,14 +386,46 @@ public class CommandTool extends Task<Object, ProcessResult> {
         // here we rewrap future based execution into process based execution to get better details about execution
         // and ability to terminate the process
         this.processRef = new ProcessReference(commandBuilder.build().getProgramName());
-        Execution<ProcessResult> processFutureExecution = super.execute();
 
-        ProcessBasedExecution<ProcessResult> execution = new ProcessBasedExecution<ProcessResult>(processFutureExecution,
+        if (!sharedIoThreads) {
+            Execution<ProcessResult> processFutureExecution = super.execute();
+            return new ProcessBasedExecution<ProcessResult>(processFutureExecution,
+                processRef,
+                commandBuilder.build().getProgramName(),
+                allowedExitCodes);
+        }
+
+        if (getExecutionService() == null) {
+            throw new ExecutionException("Unable to execute a task, execution service was not set.");
+        }
+
+        // pool thread is only used to start the process, completion is signaled once its output was consumed
+        final ProcessCompletion<ProcessResult> completion = new ProcessCompletion<ProcessResult>();
+        Execution<ProcessResult> startingExecution = getExecutionService().execute(new TaskCallable<ProcessResult>() {
+            @Override
+            public ProcessResult call() throws Exception {
+                completionHandover.set(new CompletionHandover(CommandTool.this, completion));
+                try {
+                    return run();
+                } catch (RuntimeException e) {
+                    completion.fail(e);
+                    throw e;
+                } finally {
+                    completionHandover.remove();
+                }
+            }
+
+            @Override
+            public Class<?> getTaskType() {
+                return CommandTool.this.getClass();
+            }
+        });
+        completion.startedBy(startingExecution);
+
+        return new ProcessBasedExecution<ProcessResult>(completion,
             processRef,
             commandBuilder.build().getProgramName(),
             allowedExitCodes);
-
-        return execution;
     }
 
     @Override
@@ -296,11 +433,11 @@ public class CommandTool extends Task<Object, ProcessResult> {
 
         Validate.executionNotNull(commandBuilder, "Command must not be null");
 
-        Command command = commandBuilder.build();
+        final Command command = commandBuilder.build();
         Process process = null;
 
-        Execution<Process> spawnedProcess = Spacelift.task(SpawnProcessTask.class)
-            .redirectErrorStream(true)
+        final Execution<Process> spawnedProcess = Spacelift.task(SpawnProcessTask.class)
+            .redirectErrorStream(!separateErrorStream)
             .shouldExitWith(allowedExitCodes)
             .command(command)
             .workingDirectory(workingDirectory)
@@ -311,15 +448,70 @@ public class CommandTool extends Task<Object, ProcessResult> {
         // wait for process to finish
         process = spawnedProcess.await();
 
-        // set processReference
+        // set processReference, tool run as a part of a chain has no reference created by execute()
+        final ProcessReference processRef = this.processRef != null ? this.processRef
+            : new ProcessReference(command.getProgramName());
+        final ProcessOutputBuffer output = outputRetention.createBuffer();
+        final ProcessOutputBuffer errorOutput = separateErrorStream ? errorOutputRetention.createBuffer() : null;
         processRef.setProcess(process);
+        final StreamingProcessResult currentResult = new ProcessResultImpl(process, command.getProgramName(), output, errorOutput);
+        processRef.setResult(currentResult);
+
+        // output is consumed by shared threads, complete the execution once it is done
+        if (sharedIoThreads) {
+            ProcessCompletion<ProcessResult> handedOver = takeCompletion();
+            final ProcessCompletion<ProcessResult> completion = handedOver != null ? handedOver
+                : new ProcessCompletion<ProcessResult>();
+            ConsumeProcessOutputTask consumer = configure(Spacelift.task(ConsumeProcessOutputTask.class), command, output,
+                errorOutput);
+            consumer.consumeAsynchronously(spawnedProcess, processRef, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        checkExitValue(spawnedProcess, command, currentResult, output, errorOutput);
+                        completion.complete(currentResult);
+                    } catch (RuntimeException e) {
+                        completion.fail(e);
+                    }
+                }
+            });
+            if (handedOver != null) {
+                // execute() returned the completion, no thread waits for the output
+                return currentResult;
+            }
+            // run as a part of another execution, such as a chain, which expects the output to be consumed
+            return completion.await();
+        }
 
         // handle IO of spawned process
-        Execution<ProcessResult> processConsumer = Spacelift.task(spawnedProcess, ConsumeProcessOutputTask.class)
-            .programName(command.getProgramName()).interaction(interaction).execute();
+        Execution<ProcessResult> processConsumer = configure(
+            Spacelift.task(spawnedProcess, ConsumeProcessOutputTask.class), command, output, errorOutput).execute();
 
         // wait for process to finish IO
         ProcessResult result = processConsumer.await();
+        checkExitValue(spawnedProcess, command, result, output, errorOutput);
+
+        return result;
+    }
+
+    private ProcessCompletion<ProcessResult> takeCompletion() {
+        CompletionHandover handover = completionHandover.get();
+        // other tools of the same chain run in the same thread before this one
+        if (handover == null || handover.tool != this) {
+            return null;
+        }
+        completionHandover.remove();
+        return handover.completion;
+    }
+
+    private ConsumeProcessOutputTask configure(ConsumeProcessOutputTask consumer, Command command,
+        ProcessOutputBuffer output, ProcessOutputBuffer errorOutput) {
+        return consumer.programName(command.getProgramName()).interaction(interaction).perCharacter(interactPerCharacter)
+            .output(output).errorInteraction(errorInteraction).errorOutput(errorOutput);
+    }
+
+    private void checkExitValue(Execution<Process> spawnedProcess, Command command, ProcessResult result,
+        ProcessOutputBuffer output, ProcessOutputBuffer errorOutput) throws ExecutionException {
 
         if (spawnedProcess.hasFailed()) {
 
@@ -330,22 +522,36 @@ public class CommandTool extends Task<Object, ProcessResult> {
                 env.append(envVar.getKey()).append("=\"").append(envVar.getValue()).append("\" ");
             }
 
-            StringBuilder output = new StringBuilder();
-            List<String> outputList = result.output();
+            StringBuilder log = new StringBuilder();
             // FIXME maybe we don't want this to be hardcoded
-            int from = outputList.size() > 50 ? outputList.size() - 50 : 0;
-            for(String s: outputList.subList(from, outputList.size())) {
-                output.append("\n").append(s);
+            for(String s: output.tail(50)) {
+                log.append("\n").append(s);
+            }
+            if (errorOutput != null) {
+                for(String s: errorOutput.tail(50)) {
+                    log.append("\n").append(s);
+                }
             }
 
             throw new ExecutionException("Invocation of \"{3} {0}\" failed with {1}, logged (last 50 lines): {2}", new Object[] {
                 command,
                 result.exitValue(),
-                output,
+                log,
                 env,
             });
         }
+    }
 
-        return result;
+    /**
+     * Completion of an execution together with the tool it was created for
+     */
+    private static class CompletionHandover {
+        final CommandTool tool;
+        final ProcessCompletion<ProcessResult> completion;
+
+        CompletionHandover(CommandTool tool, ProcessCompletion<ProcessResult> completion) {
+            this.tool = tool;
+            this.completion = completion;
+        }
     }
 }
@@ -17,24 +17,19 @@
 package org.arquillian.spacelift.task.os;
 
 import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.regex.Pattern;
+import java.io.Reader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.arquillian.spacelift.execution.Execution;
 import org.arquillian.spacelift.execution.ExecutionException;
-import org.arquillian.spacelift.process.OutputTransformer;
 import org.arquillian.spacelift.process.ProcessInteraction;
+import org.arquillian.spacelift.process.ProcessInteractionBuilder;
 import org.arquillian.spacelift.process.ProcessResult;
-import org.arquillian.spacelift.process.Sentence;
 import org.arquillian.spacelift.task.Task;
 
 /**
@@ -45,10 +40,12 @@ import org.arquillian.spacelift.task.Task;
  */
 class ConsumeProcessOutputTask extends Task<Execution<Process>, ProcessResult> {
 
-    private static final Logger log = Logger.getLogger(ConsumeProcessOutputTask.class.getName());
-
     private ProcessInteraction interactionDefinition;
     private String programName;
+    private boolean perCharacter;
+    private ProcessOutputBuffer output;
+    private ProcessInteraction errorInteractionDefinition;
+    private ProcessOutputBuffer errorOutput;
 
     public ConsumeProcessOutputTask programName(String programName) {
         this.programName = programName;
@@ -60,102 +57,98 @@ class ConsumeProcessOutputTask extends Task<Execution<Process>, ProcessResult> {
         return this;
     }
 
-    @Override
-    protected ProcessResult process(Execution<Process> runningProcess) throws Exception {
-
-        Process process = runningProcess.await();
-
-        final List<String> output = new ArrayList<String>();
-        final ProcessResult result = new ProcessResultImpl(process, programName, output);
-        final ProcessInteractionApplicator interaction = new ProcessInteractionApplicator(interactionDefinition, programName);
-        final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        final OutputStream writer = new BufferedOutputStream(process.getOutputStream());
-
-        // close process input stream if we don't need it
-        // closed input stream is a requirement for process not to hang on windows
-        if (!interaction.requiresInputInteraction()) {
-            try {
-                writer.close();
-            } catch (IOException ignore) {
-            }
-        }
+    /**
+     * Sets the buffer where output is stored. If not set, all output is kept.
+     *
+     * @param output the buffer
+     * @return
+     */
+    public ConsumeProcessOutputTask output(ProcessOutputBuffer output) {
+        this.output = output;
+        return this;
+    }
 
-        try {
-            // read character by character
-            int i;
-            boolean reachedEOF = false;
+    /**
+     * Sets interaction applied to the error output of the process. It is used only if error output is consumed separately.
+     * If not set, no interaction is applied to the error output.
+     *
+     * @param interaction the interaction
+     * @return
+     */
+    public ConsumeProcessOutputTask errorInteraction(ProcessInteraction interaction) {
+        this.errorInteractionDefinition = interaction;
+        return this;
+    }
 
-            // write initial text if any
-            if (interaction.typesInitialText() != null) {
-                writer.flush();
-                writer.write(interaction.typesInitialText().getBytes());
-                writer.flush();
-                output.add(interaction.typesInitialText());
-            }
+    /**
+     * Sets the buffer where error output is stored. If set, error output of the process is consumed by a separate thread,
+     * concurrently with the standard output. This requires the process not to redirect its error stream.
+     *
+     * @param errorOutput the buffer
+     * @return
+     */
+    public ConsumeProcessOutputTask errorOutput(ProcessOutputBuffer errorOutput) {
+        this.errorOutput = errorOutput;
+        return this;
+    }
 
-            Sentence sentence = new SentenceImpl();
-            // we have an extra check to figure out whether EOF was reached - using last expected response
-            while (!reachedEOF && (i = reader.read()) != -1) {
-                // add the character
-                sentence.append((char) i);
-
-                boolean shouldTerminate = interaction.shouldTerminate(sentence);
-                String answer = interaction.repliesTo(sentence);
-                // sentence was not empty, reply
-                if (answer != null) {
-                    sentence.append(answer);
-                    writer.flush();
-                    writer.write(answer.getBytes());
-                    writer.flush();
-                }
-                if (shouldTerminate) {
-                    runningProcess.markAsFinished();
-                    runningProcess.terminate();
-                }
+    /**
+     * Evaluates interaction after every character instead of every line. This is only needed for interactive prompts
+     * without trailing newline, which the process does not flush.
+     *
+     * @param perCharacter {@code true} to evaluate interaction per character
+     * @return
+     */
+    public ConsumeProcessOutputTask perCharacter(boolean perCharacter) {
+        this.perCharacter = perCharacter;
+        return this;
+    }
 
-                reachedEOF = runningProcess.isMarkedAsFinished();
+    @Override
+    protected ProcessResult process(final Execution<Process> runningProcess) throws Exception {
 
-                // save and print output
-                if (sentence.isFinished()) {
-                    sentence.trim();
-                    log.log(Level.FINEST, "({0}): {1}", new Object[] { result.processName(), sentence });
+        final Process process = runningProcess.await();
 
-                    output.add(sentence.toString());
-                    // propagate output/error to user
-                    if (interaction.shouldOutput(sentence)) {
-                        System.out.println(interaction.transform(sentence));
-                    }
-                    if (interaction.shouldOutputToErr(sentence)) {
-                        System.err.println(interaction.transform(sentence));
+        final ProcessOutputBuffer output = outputBuffer();
+        final ProcessResult result = new ProcessResultImpl(process, programName, output, errorOutput);
+        final ProcessInteractionApplicator interaction = new ProcessInteractionApplicator(interactionDefinition, programName);
+        final ProcessInteractionApplicator errorInteraction = errorInteraction();
+        final Reader reader = new InputStreamReader(process.getInputStream());
+        final OutputStream writer = writer(process, interaction, errorInteraction);
+
+        // error output is pumped by its own thread, so it never delays interaction with standard output
+        Execution<Void> errorPump = null;
+        if (errorInteraction != null) {
+            final Reader errorReader = new InputStreamReader(process.getErrorStream());
+            errorPump = getExecutionService().execute(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        consumer(runningProcess, errorInteraction, writer, errorOutput).consume(errorReader);
+                    } catch (IOException ignore) {
+                    } finally {
+                        errorOutput.close();
                     }
-                    sentence.reset();
-                }
-            }
-
-            // handle last line
-            if (!sentence.isEmpty()) {
-                log.log(Level.FINEST, "{0} outputs: {1}", new Object[] { result.processName(), sentence });
-
-                output.add(sentence.toString());
-                // propagate output/error to user
-                if (interaction.shouldOutput(sentence)) {
-                    System.out.println(interaction.transform(sentence));
-                }
-                if (interaction.shouldOutputToErr(sentence)) {
-                    System.err.println(interaction.transform(sentence));
+                    return null;
                 }
-
-            }
-        } catch (IOException ignore) {
+            });
         }
 
         try {
-            if (writer != null) {
-                writer.close();
-            }
+            typeInitialText(interaction, writer, output);
+            consumer(runningProcess, interaction, writer, output).consume(reader);
         } catch (IOException ignore) {
+        } finally {
+            output.close();
+        }
+
+        // error output is closed once the process finishes or is terminated
+        if (errorPump != null) {
+            errorPump.await();
         }
 
+        closeQuietly(writer);
+
         // let's wait for process to finish. It should be already finished or terminated at this moment
         try {
             process.waitFor();
@@ -167,111 +160,138 @@ class ConsumeProcessOutputTask extends Task<Execution<Process>, ProcessResult> {
                 new Object[] {
                     programName, e.getMessage() });
         } finally {
-            // cleanup
-            if (process != null) {
-                InputStream in = process.getInputStream();
-                InputStream err = process.getErrorStream();
-                OutputStream out = process.getOutputStream();
-                if (in != null) {
-                    try {
-                        in.close();
-                    } catch (IOException ignore) {
-                    }
-                }
-                if (out != null) {
-                    try {
-                        out.close();
-                    } catch (IOException ignore) {
-                    }
-                }
-                if (err != null) {
-                    try {
-                        err.close();
-                    } catch (IOException ignore) {
-                    }
-                }
-                // just in case, something went wrong
-                process.destroy();
-            }
+            cleanup(process);
         }
 
         return result;
     }
 
     /**
-     * Applicator of ProcessInteraction to the currently running process
-     *
-     * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+     * Consumes output of the process by shared threads of {@link ProcessIoMultiplexer} and returns immediately, without
+     * occupying current thread while the process is running.
      *
+     * @param runningProcess the process
+     * @param reference reference to the process, used to get notified about process exit
+     * @param onComplete called when all output was consumed and the process has exited
+     * @return result that is filled while the process is running
      */
-    private static class ProcessInteractionApplicator {
-
-        final ProcessInteraction interaction;
-        final OutputTransformer transformer;
-
-        public ProcessInteractionApplicator(final ProcessInteraction interaction, final String processName) {
-            this.interaction = interaction;
-            if (interaction.transformer() == null) {
-                // add process name transformer if no transformer was defined
-                this.transformer = new OutputTransformer() {
-                    @Override
-                    public Sentence transform(Sentence output) {
-                        return output.prepend("):").prepend(processName).prepend("(");
-                    }
-                };
-            }
-            else {
-                this.transformer = interaction.transformer();
-            }
-        }
+    ProcessResult consumeAsynchronously(final Execution<Process> runningProcess, ProcessReference reference,
+        final Runnable onComplete) {
 
-        public String typesInitialText() {
-            return interaction.textTypedIn();
-        }
+        final Process process = reference.getProcess();
 
-        public String repliesTo(Sentence sentence) {
-            for (Map.Entry<Pattern, String> entry : interaction.replyMap().entrySet()) {
-                if (entry.getKey().matcher(sentence).matches()) {
-                    return entry.getValue();
+        final ProcessOutputBuffer output = outputBuffer();
+        final ProcessResult result = new ProcessResultImpl(process, programName, output, errorOutput);
+        final ProcessInteractionApplicator interaction = new ProcessInteractionApplicator(interactionDefinition, programName);
+        final ProcessInteractionApplicator errorInteraction = errorInteraction();
+        final OutputStream writer = writer(process, interaction, errorInteraction);
+
+        // every stream and the process exit count down, the last one cleans up
+        final AtomicInteger pending = new AtomicInteger(errorInteraction != null ? 3 : 2);
+        final Runnable countDown = new Runnable() {
+            @Override
+            public void run() {
+                if (pending.decrementAndGet() == 0) {
+                    closeQuietly(writer);
+                    cleanup(process);
+                    onComplete.run();
                 }
             }
-            return null;
-        }
+        };
 
-        public boolean shouldTerminate(Sentence sentence) {
-            for (Pattern p : interaction.terminatingOutput()) {
-                if (p.matcher(sentence).matches()) {
-                    return true;
-                }
-            }
-            return false;
+        try {
+            typeInitialText(interaction, writer, output);
+        } catch (IOException ignore) {
         }
 
-        public boolean shouldOutput(Sentence sentence) {
-            for (Pattern p : interaction.allowedOutput()) {
-                if (p.matcher(sentence).matches()) {
-                    return true;
-                }
+        ProcessIoMultiplexer multiplexer = ProcessIoMultiplexer.getInstance();
+        multiplexer.register(reference, process.getInputStream(),
+            consumer(runningProcess, interaction, writer, output), closing(output, countDown));
+        if (errorInteraction != null) {
+            multiplexer.register(reference, process.getErrorStream(),
+                consumer(runningProcess, errorInteraction, writer, errorOutput), closing(errorOutput, countDown));
+        }
+        reference.onExit(new ProcessExitListener() {
+            @Override
+            public void processExited(Process process, int exitValue) {
+                countDown.run();
             }
-            return false;
+        });
+
+        return result;
+    }
+
+    private ProcessOutputBuffer outputBuffer() {
+        return this.output != null ? this.output : OutputRetention.all().createBuffer();
+    }
+
+    private ProcessInteractionApplicator errorInteraction() {
+        if (errorOutput == null) {
+            return null;
         }
+        return new ProcessInteractionApplicator(errorInteractionDefinition != null ? errorInteractionDefinition
+            : ProcessInteractionBuilder.NO_INTERACTION, programName);
+    }
+
+    private ProcessOutputConsumer consumer(Execution<Process> runningProcess, ProcessInteractionApplicator interaction,
+        OutputStream writer, ProcessOutputBuffer output) {
+        return perCharacter
+            ? ProcessOutputConsumer.perCharacter(runningProcess, interaction, writer, output, programName)
+            : ProcessOutputConsumer.lineBuffered(runningProcess, interaction, writer, output, programName);
+    }
 
-        public Sentence transform(Sentence original) {
-            return transformer.transform(original);
+    private static OutputStream writer(Process process, ProcessInteractionApplicator interaction,
+        ProcessInteractionApplicator errorInteraction) {
+        OutputStream writer = new BufferedOutputStream(process.getOutputStream());
+
+        // close process input stream if we don't need it
+        // closed input stream is a requirement for process not to hang on windows
+        if (!interaction.requiresInputInteraction()
+            && (errorInteraction == null || !errorInteraction.requiresInputInteraction())) {
+            closeQuietly(writer);
         }
+        return writer;
+    }
 
-        public boolean shouldOutputToErr(Sentence sentence) {
-            for (Pattern p : interaction.errorOutput()) {
-                if (p.matcher(sentence).matches()) {
-                    return true;
-                }
+    private static void typeInitialText(ProcessInteractionApplicator interaction, OutputStream writer,
+        ProcessOutputBuffer output) throws IOException {
+        // write initial text if any
+        if (interaction.typesInitialText() != null) {
+            synchronized (writer) {
+                writer.flush();
+                writer.write(interaction.typesInitialText().getBytes());
+                writer.flush();
             }
-            return false;
+            output.add(interaction.typesInitialText());
         }
+    }
+
+    private static Runnable closing(final ProcessOutputBuffer output, final Runnable next) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                output.close();
+                next.run();
+            }
+        };
+    }
 
-        public boolean requiresInputInteraction() {
-            return !interaction.replyMap().isEmpty() || (interaction.textTypedIn() != null && interaction.textTypedIn() != "");
+    private static void cleanup(Process process) {
+        if (process != null) {
+            closeQuietly(process.getInputStream());
+            closeQuietly(process.getOutputStream());
+            closeQuietly(process.getErrorStream());
+            // just in case, something went wrong
+            process.destroy();
         }
     }
 
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import org.arquillian.spacelift.process.ProcessResult;
+import org.arquillian.spacelift.process.StreamingProcessResult;
+
+/**
+ * Defines how much of the process output is kept in {@link ProcessResult}. By default, the whole output is kept in memory,
+ * which might not be desired for long running processes.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public abstract class OutputRetention {
+
+    private OutputRetention() {
+    }
+
+    /**
+     * Keeps the whole output in memory. This is the default.
+     *
+     * @return
+     */
+    public static OutputRetention all() {
+        return new OutputRetention() {
+            @Override
+            ProcessOutputBuffer createBuffer() {
+                return new ProcessOutputBuffer.All();
+            }
+        };
+    }
+
+    /**
+     * Keeps only last {@code lines} lines of the output in memory.
+     *
+     * @param lines number of lines to be kept
+     * @return
+     * @throws IllegalArgumentException if {@code lines} is not positive
+     */
+    public static OutputRetention lastLines(final int lines) throws IllegalArgumentException {
+        if (lines < 1) {
+            throw new IllegalArgumentException("Number of retained lines must be positive, was " + lines);
+        }
+        return new OutputRetention() {
+            @Override
+            ProcessOutputBuffer createBuffer() {
+                return new ProcessOutputBuffer.LastLines(lines);
+            }
+        };
+    }
+
+    /**
+     * Keeps the last lines of the output in memory, as long as they do not exceed {@code characters} characters in total.
+     * The last line is always kept. For ASCII output, this is the number of bytes kept.
+     *
+     * @param characters number of characters to be kept
+     * @return
+     * @throws IllegalArgumentException if {@code characters} is not positive
+     */
+    public static OutputRetention lastCharacters(final long characters) throws IllegalArgumentException {
+        if (characters < 1) {
+            throw new IllegalArgumentException("Number of retained characters must be positive, was " + characters);
+        }
+        return new OutputRetention() {
+            @Override
+            ProcessOutputBuffer createBuffer() {
+                return new ProcessOutputBuffer.LastCharacters(characters);
+            }
+        };
+    }
+
+    /**
+     * Keeps up to {@code lines} lines of the output in memory. If the process outputs more lines, the whole output is
+     * written to a temporary file and only last {@code lines} lines are kept in memory. The file is deleted by
+     * {@link StreamingProcessResult#release()}, or once the result is garbage collected.
+     *
+     * @param lines threshold in lines
+     * @return
+     * @throws IllegalArgumentException if {@code lines} is not positive
+     */
+    public static OutputRetention spillToFile(final int lines) throws IllegalArgumentException {
+        if (lines < 1) {
+            throw new IllegalArgumentException("Number of lines kept in memory must be positive, was " + lines);
+        }
+        return new OutputRetention() {
+            @Override
+            ProcessOutputBuffer createBuffer() {
+                return new ProcessOutputBuffer.SpillToFile(lines);
+            }
+        };
+    }
+
+    /**
+     * Does not keep any output. Output is still consumed and interaction is applied.
+     *
+     * @return
+     */
+    public static OutputRetention discard() {
+        return new OutputRetention() {
+            @Override
+            ProcessOutputBuffer createBuffer() {
+                return new ProcessOutputBuffer.Discard();
+            }
+        };
+    }
+
+    /**
+     * Creates a new buffer for a single process run
+     *
+     * @return
+     */
+    abstract ProcessOutputBuffer createBuffer();
+}
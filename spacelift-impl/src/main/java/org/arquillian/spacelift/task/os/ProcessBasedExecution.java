@@ -30,6 +30,8 @@ import org.arquillian.spacelift.execution.ExecutionCondition;
 import org.arquillian.spacelift.execution.ExecutionException;
 import org.arquillian.spacelift.execution.TimeoutExecutionException;
 import org.arquillian.spacelift.execution.impl.ShutdownHooks;
+import org.arquillian.spacelift.process.ProcessResult;
+import org.arquillian.spacelift.process.StreamingProcessResult;
 
 /**
  * Representation of a process execution.
@@ -45,7 +47,7 @@ public class ProcessBasedExecution<RESULT> implements Execution<RESULT> {
     private final String processName;
     private final List<Integer> allowedExitCodes;
 
-    private boolean shouldBeFinished;
+    private volatile boolean shouldBeFinished;
 
     /**
      * Creates a process execution, add a name to the process
@@ -62,21 +64,30 @@ public class ProcessBasedExecution<RESULT> implements Execution<RESULT> {
 
     @Override
     public boolean isFinished() {
+        // both are volatile reads, process exit is reported by ProcessExitWatcher
+        return isMarkedAsFinished() || processReference.hasExited();
+    }
 
-        // if process is marked as finished, consider it so
-        if (isMarkedAsFinished()) {
-            return true;
-        }
+    /**
+     * Returns result of the process that is being filled while the process is running. Its output can be followed via
+     * {@link StreamingProcessResult#followOutput()} without waiting for the process to finish.
+     *
+     * @return the result or {@code null} if the process was not yet started or its output is not consumed by Spacelift
+     */
+    public StreamingProcessResult currentResult() {
+        return processReference.getResult();
+    }
 
-        try {
-            if (!processReference.isInitialized()) {
-                return false;
-            }
-            processReference.getProcess().exitValue();
-            return true;
-        } catch (IllegalThreadStateException e) {
-            return false;
-        }
+    /**
+     * Registers a listener notified when the process exits. If the process has already exited, listener is notified
+     * immediately. Listener is not notified if the process was never started.
+     *
+     * @param listener the listener
+     * @return
+     */
+    public ProcessBasedExecution<RESULT> onExit(ProcessExitListener listener) {
+        processReference.onExit(listener);
+        return this;
     }
 
     @Override
@@ -99,6 +110,8 @@ public class ProcessBasedExecution<RESULT> implements Execution<RESULT> {
         } catch (InterruptedException e) {
             log.log(Level.WARNING, "Ignoring Interuption Exception while terminating the process {0}", processName);
         }
+        // do not wait for exit notification
+        processReference.checkExited();
 
         // close STDIN of the process, if any
         OutputStream ostream = processReference.getProcess().getOutputStream();
@@ -128,17 +141,19 @@ public class ProcessBasedExecution<RESULT> implements Execution<RESULT> {
 
     @Override
     public boolean hasFailed() {
-        if (!isFinished()) {
+        // exit notification might not have been delivered yet, ask the process directly
+        if (!processReference.checkExited()) {
             throw new IllegalStateException("Process " + processName
                 + " is not yet finished, cannot determine whether it failed.");
         }
 
+        int exitValue = processReference.getExitValue();
         // check whether we have specified exit value and if not adhere to defaults
         if (allowedExitCodes.isEmpty()) {
-            return processReference.getProcess().exitValue() != 0;
+            return exitValue != 0;
         }
 
-        return !allowedExitCodes.contains(processReference.getProcess().exitValue());
+        return !allowedExitCodes.contains(exitValue);
     }
 
     @Override
@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.arquillian.spacelift.execution.CountDownWatch;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionCondition;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.TimeoutExecutionException;
+import org.arquillian.spacelift.execution.impl.ShutdownHooks;
+
+/**
+ * Execution that is completed explicitly, by whoever observes the end of the work, instead of by a thread that waits for
+ * it. No thread is occupied while the execution is running.
+ *
+ * Process cannot be executed again, so {@link #reexecuteEvery(long, TimeUnit)} has no effect and
+ * {@link #until(long, TimeUnit, ExecutionCondition)} only checks the result once it is available.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ * @param <RESULT> Deferred result of the execution
+ */
+class ProcessCompletion<RESULT> implements Execution<RESULT> {
+
+    private final Completion completion;
+
+    private volatile Execution<?> startingExecution;
+    private volatile boolean shouldBeFinished;
+    private volatile boolean failed;
+
+    public ProcessCompletion() {
+        this.completion = new Completion();
+    }
+
+    /**
+     * Sets execution that is starting the work. It is terminated if this execution is terminated.
+     *
+     * @param startingExecution the execution
+     */
+    void startedBy(Execution<?> startingExecution) {
+        this.startingExecution = startingExecution;
+    }
+
+    /**
+     * Completes the execution with the {@code result}
+     *
+     * @param result the result
+     */
+    void complete(RESULT result) {
+        completion.set(result);
+    }
+
+    /**
+     * Completes the execution with a failure
+     *
+     * @param cause the cause
+     */
+    void fail(Throwable cause) {
+        // set before completion, so a thread that sees the failure in await() sees it in hasFailed() as well
+        failed = true;
+        completion.setException(cause);
+    }
+
+    @Override
+    public Execution<RESULT> markAsFinished() {
+        this.shouldBeFinished = true;
+        return this;
+    }
+
+    @Override
+    public Execution<RESULT> registerShutdownHook() {
+        ShutdownHooks.addHookFor(this);
+        return this;
+    }
+
+    @Override
+    public boolean isMarkedAsFinished() {
+        return shouldBeFinished;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return isMarkedAsFinished() || completion.isDone();
+    }
+
+    @Override
+    public boolean hasFailed() throws IllegalStateException {
+        return failed || completion.isCancelled();
+    }
+
+    @Override
+    public Execution<RESULT> terminate() throws ExecutionException {
+        Execution<?> starting = startingExecution;
+        if (starting != null) {
+            starting.terminate();
+        }
+        completion.cancel(true);
+        return this;
+    }
+
+    @Override
+    public RESULT await() throws ExecutionException {
+        try {
+            return completion.get();
+        } catch (InterruptedException e) {
+            throw new ExecutionException(e, "Interrupted while executing a process");
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw unwrapException(e.getCause());
+        }
+    }
+
+    @Override
+    public RESULT awaitAtMost(long timeout, TimeUnit unit) throws ExecutionException, TimeoutExecutionException {
+        try {
+            return completion.get(timeout, unit);
+        } catch (InterruptedException e) {
+            throw new ExecutionException(e, "Interrupted while executing a process");
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw unwrapException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new TimeoutExecutionException(e, "Timed out after {0}{1} while executing a process", timeout, unit);
+        }
+    }
+
+    @Override
+    public RESULT awaitAtMost(CountDownWatch timeout) throws ExecutionException, TimeoutExecutionException {
+        return awaitAtMost(timeout.timeout(), timeout.getTimeUnit());
+    }
+
+    @Override
+    public Execution<RESULT> reexecuteEvery(long step, TimeUnit unit) {
+        return this;
+    }
+
+    @Override
+    public RESULT until(long timeout, TimeUnit unit, ExecutionCondition<RESULT> condition) throws ExecutionException,
+        TimeoutExecutionException {
+        RESULT result = awaitAtMost(timeout, unit);
+        if (condition.satisfiedBy(result)) {
+            return result;
+        }
+        throw new TimeoutExecutionException("Unable to trigger condition within {0} {1}.", timeout, unit.toString()
+            .toLowerCase());
+    }
+
+    @Override
+    public RESULT until(CountDownWatch timeout, ExecutionCondition<RESULT> condition) throws ExecutionException,
+        TimeoutExecutionException {
+        return until(timeout.timeout(), timeout.getTimeUnit(), condition);
+    }
+
+    private static ExecutionException unwrapException(Throwable cause) {
+        if (cause instanceof ExecutionException) {
+            return (ExecutionException) cause;
+        }
+        return new ExecutionException(cause, "Execution of a process failed");
+    }
+
+    /**
+     * Future that exposes its completion
+     */
+    private class Completion extends FutureTask<RESULT> {
+
+        Completion() {
+            super(new Callable<RESULT>() {
+                @Override
+                public RESULT call() throws Exception {
+                    throw new IllegalStateException("Process completion is never run");
+                }
+            });
+        }
+
+        @Override
+        protected void set(RESULT result) {
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            super.setException(t);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Notifies {@link ProcessExitListener}s about exited processes without dedicating a thread to every process.
+ *
+ * If the JVM provides {@code Process.onExit()}, exit notification is delegated to it. Otherwise, all watched processes are
+ * checked by a single reaper thread, which polls more often right after a process was registered and backs off while
+ * nothing changes.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ProcessExitWatcher {
+
+    private static final Logger log = Logger.getLogger(ProcessExitWatcher.class.getName());
+
+    private static final long MIN_POLL_INTERVAL = 1;
+    private static final long MAX_POLL_INTERVAL = 50;
+
+    // Java 8+
+    private static final Method IS_ALIVE = method(Process.class, "isAlive");
+    // Java 9+
+    private static final Method ON_EXIT = method(Process.class, "onExit");
+    private static final Class<?> BI_CONSUMER = type("java.util.function.BiConsumer");
+    private static final Method WHEN_COMPLETE = BI_CONSUMER == null ? null : method(
+        type("java.util.concurrent.CompletableFuture"), "whenComplete", BI_CONSUMER);
+
+    private static final ProcessExitWatcher INSTANCE = new ProcessExitWatcher(ON_EXIT != null && WHEN_COMPLETE != null);
+
+    private final boolean nativeNotification;
+    private final Map<Process, List<ProcessExitListener>> watched;
+    private Thread reaper;
+    private long pollInterval;
+
+    ProcessExitWatcher(boolean nativeNotification) {
+        this.nativeNotification = nativeNotification;
+        this.watched = new IdentityHashMap<Process, List<ProcessExitListener>>();
+    }
+
+    /**
+     * Returns the watcher shared by all processes
+     *
+     * @return
+     */
+    static ProcessExitWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks whether {@code process} has exited, without throwing and catching an exception where possible
+     *
+     * @param process the process
+     * @return {@code true} if process has exited
+     */
+    static boolean hasExited(Process process) {
+        if (IS_ALIVE != null) {
+            try {
+                return !((Boolean) IS_ALIVE.invoke(process));
+            } catch (Exception e) {
+                // fall back to exit value
+            }
+        }
+        try {
+            process.exitValue();
+            return true;
+        } catch (IllegalThreadStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Registers {@code listener} to be notified when {@code process} exits. If the process has already exited, listener is
+     * notified shortly.
+     *
+     * @param process the process
+     * @param listener the listener
+     */
+    void watch(Process process, ProcessExitListener listener) {
+        synchronized (watched) {
+            List<ProcessExitListener> listeners = watched.get(process);
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+
+            listeners = new ArrayList<ProcessExitListener>();
+            listeners.add(listener);
+            watched.put(process, listeners);
+
+            if (!nativeNotification) {
+                // newly registered processes are likely to be short living, poll them often
+                pollInterval = MIN_POLL_INTERVAL;
+                if (reaper == null) {
+                    reaper = new Thread(new Reaper(), "spacelift-process-reaper");
+                    reaper.setDaemon(true);
+                    reaper.start();
+                }
+                watched.notifyAll();
+                return;
+            }
+        }
+
+        registerOnExit(process);
+    }
+
+    private void registerOnExit(final Process process) {
+        Object callback = Proxy.newProxyInstance(BI_CONSUMER.getClassLoader(), new Class<?>[] { BI_CONSUMER },
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if ("accept".equals(method.getName())) {
+                        exited(process);
+                        return null;
+                    }
+                    // Object methods
+                    if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+                    return "ProcessExitCallback";
+                }
+            });
+
+        try {
+            WHEN_COMPLETE.invoke(ON_EXIT.invoke(process), callback);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Unable to register exit callback, process exit will not be reported", e);
+        }
+    }
+
+    private void exited(Process process) {
+        List<ProcessExitListener> listeners;
+        synchronized (watched) {
+            listeners = watched.remove(process);
+        }
+        if (listeners == null) {
+            return;
+        }
+
+        int exitValue = process.exitValue();
+        for (ProcessExitListener listener : listeners) {
+            try {
+                listener.processExited(process, exitValue);
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Process exit listener failed", e);
+            }
+        }
+    }
+
+    private class Reaper implements Runnable {
+        @Override
+        public void run() {
+            List<Process> processes = new ArrayList<Process>();
+            while (true) {
+                synchronized (watched) {
+                    try {
+                        while (watched.isEmpty()) {
+                            watched.wait();
+                        }
+                        watched.wait(pollInterval);
+                    } catch (InterruptedException e) {
+                        log.log(Level.WARNING, "Process reaper was interrupted, process exit will not be reported");
+                        reaper = null;
+                        return;
+                    }
+                    processes.clear();
+                    processes.addAll(watched.keySet());
+                }
+
+                boolean anyExited = false;
+                for (Process process : processes) {
+                    if (hasExited(process)) {
+                        exited(process);
+                        anyExited = true;
+                    }
+                }
+
+                synchronized (watched) {
+                    pollInterval = anyExited ? MIN_POLL_INTERVAL : Math.min(pollInterval * 2, MAX_POLL_INTERVAL);
+                }
+            }
+        }
+    }
+
+    private static Class<?> type(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
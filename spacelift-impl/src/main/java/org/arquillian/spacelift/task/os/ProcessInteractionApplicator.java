@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import org.arquillian.spacelift.process.OutputTransformer;
+import org.arquillian.spacelift.process.ProcessInteraction;
+import org.arquillian.spacelift.process.ProcessInteractionMatcher;
+import org.arquillian.spacelift.process.Sentence;
+
+/**
+ * Applicator of ProcessInteraction to the currently running process. It is meant to be used by a single thread, as it keeps
+ * state of the last evaluation.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ProcessInteractionApplicator {
+
+    final ProcessInteraction interaction;
+    final OutputTransformer transformer;
+    final ProcessInteractionMatcher.Evaluator evaluator;
+
+    public ProcessInteractionApplicator(final ProcessInteraction interaction, final String processName) {
+        this.interaction = interaction;
+        this.evaluator = ProcessInteractionMatcher.of(interaction).evaluator();
+        if (interaction.transformer() == null) {
+            // add process name transformer if no transformer was defined
+            this.transformer = new OutputTransformer() {
+                @Override
+                public Sentence transform(Sentence output) {
+                    return output.prepend("):").prepend(processName).prepend("(");
+                }
+            };
+        }
+        else {
+            this.transformer = interaction.transformer();
+        }
+    }
+
+    public String typesInitialText() {
+        return interaction.textTypedIn();
+    }
+
+    /**
+     * Evaluates interaction rules against the {@code sentence} in a single pass
+     *
+     * @param sentence the sentence
+     * @param requestedActions actions to be checked, as defined by {@link ProcessInteractionMatcher}
+     * @return actions that fired
+     */
+    public int evaluate(Sentence sentence, int requestedActions) {
+        return evaluator.evaluate(sentence, requestedActions);
+    }
+
+    /**
+     * Returns reply found by the last {@link #evaluate(Sentence, int)} call
+     *
+     * @return the reply or {@code null}
+     */
+    public String reply() {
+        return evaluator.reply();
+    }
+
+    public Sentence transform(Sentence original) {
+        return transformer.transform(original);
+    }
+
+    public boolean requiresInputInteraction() {
+        return !interaction.replyMap().isEmpty() || (interaction.textTypedIn() != null && interaction.textTypedIn() != "");
+    }
+}
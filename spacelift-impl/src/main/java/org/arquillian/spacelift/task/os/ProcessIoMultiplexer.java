@@ -0,0 +1,242 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads output of many processes with a small, fixed set of threads.
+ *
+ * Process streams are not selectable, so every thread sweeps its streams and reads only what {@link InputStream#available()}
+ * reports, which never blocks. A stream is considered closed once the process has exited and there is nothing left to read.
+ * Threads back off while none of their streams produces any output.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class ProcessIoMultiplexer {
+
+    private static final Logger log = Logger.getLogger(ProcessIoMultiplexer.class.getName());
+
+    private static final long MAX_IDLE_WAIT = 10;
+
+    private static final ProcessIoMultiplexer INSTANCE = new ProcessIoMultiplexer(Math.max(1,
+        Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    private final IoThread[] threads;
+    private int next;
+
+    ProcessIoMultiplexer(int threadCount) {
+        this.threads = new IoThread[threadCount];
+    }
+
+    /**
+     * Returns the multiplexer shared by all processes
+     *
+     * @return
+     */
+    static ProcessIoMultiplexer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts pumping {@code stream} of the process referenced by {@code process} into {@code consumer}. {@code onClose} is
+     * called once the stream was closed and the consumer was finished.
+     *
+     * @param process the process
+     * @param stream output or error stream of the process
+     * @param consumer consumer of the stream
+     * @param onClose callback called when stream is closed
+     */
+    void register(ProcessReference process, InputStream stream, ProcessOutputConsumer consumer, Runnable onClose) {
+        Channel channel = new Channel(process, stream, consumer, onClose);
+        IoThread thread;
+        synchronized (threads) {
+            int index = next++ % threads.length;
+            if (threads[index] == null) {
+                threads[index] = new IoThread("spacelift-io-" + (index + 1));
+                threads[index].start();
+            }
+            thread = threads[index];
+        }
+        thread.add(channel);
+    }
+
+    private static class IoThread extends Thread {
+
+        private final List<Channel> channels = new ArrayList<Channel>();
+        private final List<Channel> active = new ArrayList<Channel>();
+
+        IoThread(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        void add(Channel channel) {
+            synchronized (channels) {
+                channels.add(channel);
+                channels.notifyAll();
+            }
+        }
+
+        @Override
+        public void run() {
+            long idleWait = 0;
+            while (true) {
+                synchronized (channels) {
+                    try {
+                        while (channels.isEmpty()) {
+                            channels.wait();
+                        }
+                        if (idleWait > 0) {
+                            channels.wait(idleWait);
+                        }
+                    } catch (InterruptedException e) {
+                        log.log(Level.WARNING, "{0} was interrupted, process output will not be consumed", getName());
+                        return;
+                    }
+                    // channels are only modified under the lock, active list is owned by this thread
+                    active.addAll(channels);
+                    channels.clear();
+                }
+
+                boolean progress = false;
+                for (Iterator<Channel> it = active.iterator(); it.hasNext();) {
+                    Channel channel = it.next();
+                    try {
+                        progress |= channel.pump();
+                    } catch (Exception e) {
+                        log.log(Level.WARNING, "Unable to consume output of " + channel.consumer.processName, e);
+                        channel.close();
+                    }
+                    if (channel.isClosed()) {
+                        it.remove();
+                    }
+                }
+
+                idleWait = progress ? 0 : Math.min(MAX_IDLE_WAIT, Math.max(1, idleWait * 2));
+
+                synchronized (channels) {
+                    channels.addAll(active);
+                    active.clear();
+                }
+            }
+        }
+    }
+
+    private static class Channel {
+
+        private final ProcessReference process;
+        private final InputStream stream;
+        private final ProcessOutputConsumer consumer;
+        private final Runnable onClose;
+        private final CharsetDecoder decoder;
+        private final ByteBuffer bytes;
+        private final CharBuffer chars;
+        private boolean closed;
+
+        Channel(ProcessReference process, InputStream stream, ProcessOutputConsumer consumer, Runnable onClose) {
+            this.process = process;
+            this.stream = stream;
+            this.consumer = consumer;
+            this.onClose = onClose;
+            // the same decoding InputStreamReader uses by default
+            this.decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.bytes = ByteBuffer.allocate(ProcessOutputConsumer.BUFFER);
+            this.chars = CharBuffer.allocate(ProcessOutputConsumer.BUFFER);
+        }
+
+        /**
+         * Reads output that is available without blocking
+         *
+         * @return {@code true} if anything was read
+         */
+        boolean pump() throws IOException {
+            // exit has to be checked first, everything written before exit is available afterwards
+            boolean exited = process.hasExited();
+            int available = stream.available();
+
+            if (available <= 0) {
+                if (exited) {
+                    close();
+                }
+                return false;
+            }
+
+            int read = stream.read(bytes.array(), bytes.position(), Math.min(available, bytes.remaining()));
+            if (read == -1) {
+                close();
+                return false;
+            }
+            bytes.position(bytes.position() + read);
+            bytes.flip();
+            decoder.decode(bytes, chars, false);
+            bytes.compact();
+            chars.flip();
+
+            boolean reachedEOF = consumer.feed(chars.array(), chars.limit(), stream.available() > 0);
+            chars.clear();
+            if (reachedEOF) {
+                close();
+            }
+            return true;
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // flush characters that were incomplete
+                bytes.flip();
+                decoder.decode(bytes, chars, true);
+                decoder.flush(chars);
+                chars.flip();
+                if (chars.hasRemaining()) {
+                    consumer.feed(chars.array(), chars.limit(), false);
+                }
+                consumer.finish();
+            } catch (IOException e) {
+                log.log(Level.FINE, "Unable to finish consuming output of " + consumer.processName, e);
+            } finally {
+                try {
+                    onClose.run();
+                } catch (RuntimeException e) {
+                    log.log(Level.WARNING, "Unable to complete execution of " + consumer.processName, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.util.CharsetUtil;
+
+/**
+ * Storage of process output lines. Every line gets a sequence number, starting from {@code 0}. Implementations decide
+ * which lines are retained.
+ *
+ * All methods are thread safe, output can be read while the process is still running.
+ *
+ * @see OutputRetention
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+abstract class ProcessOutputBuffer {
+
+    private long count;
+    private boolean closed;
+
+    /**
+     * Adds a line to the output
+     *
+     * @param line the line
+     */
+    final synchronized void add(String line) {
+        retain(line);
+        count++;
+        notifyAll();
+    }
+
+    /**
+     * Marks the output as complete, no more lines will be added
+     */
+    final synchronized void close() {
+        if (!closed) {
+            closed = true;
+            release();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Closes the output and releases resources that are not needed for lines retained in memory, such as temporary files
+     */
+    final synchronized void dispose() {
+        close();
+        discard();
+    }
+
+    /**
+     * Returns all retained lines
+     *
+     * @return
+     */
+    final synchronized List<String> lines() {
+        return retained();
+    }
+
+    /**
+     * Returns up to {@code lines} last retained lines
+     *
+     * @param lines number of lines
+     * @return
+     */
+    final synchronized List<String> tail(int lines) {
+        long from = Math.max(firstRetained(), count - lines);
+        List<String> tail = new ArrayList<String>((int) (count - from));
+        for (long i = from; i < count; i++) {
+            tail.add(retainedAt(i));
+        }
+        return tail;
+    }
+
+    /**
+     * Returns a live view of the output. Iterator blocks until next line is available and finishes when output is closed.
+     * Lines that were dropped before the iterator reached them are skipped.
+     *
+     * @return
+     */
+    final Iterable<String> follow() {
+        return new Iterable<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new FollowingIterator();
+            }
+        };
+    }
+
+    /**
+     * Stores the line. Called while holding the lock.
+     *
+     * @param line the line
+     */
+    abstract void retain(String line);
+
+    /**
+     * Returns sequence number of the oldest retained line. Called while holding the lock.
+     *
+     * @return
+     */
+    abstract long firstRetained();
+
+    /**
+     * Returns retained line with sequence number {@code sequence}. Called while holding the lock.
+     *
+     * @param sequence the sequence number
+     * @return
+     */
+    abstract String retainedAt(long sequence);
+
+    /**
+     * Returns a copy of all retained lines. Called while holding the lock.
+     *
+     * @return
+     */
+    List<String> retained() {
+        return tail((int) Math.min(Integer.MAX_VALUE, count));
+    }
+
+    /**
+     * Releases resources held by the buffer once the output is closed. Called while holding the lock.
+     */
+    void release() {
+    }
+
+    /**
+     * Releases resources held outside of memory, only lines retained in memory stay available. Called while holding the
+     * lock, after the output was closed.
+     */
+    void discard() {
+    }
+
+    /**
+     * Returns number of lines added so far. Called while holding the lock.
+     *
+     * @return
+     */
+    long count() {
+        return count;
+    }
+
+    private class FollowingIterator implements Iterator<String> {
+
+        private long next;
+
+        @Override
+        public boolean hasNext() {
+            synchronized (ProcessOutputBuffer.this) {
+                while (true) {
+                    next = Math.max(next, firstRetained());
+                    if (next < count) {
+                        return true;
+                    }
+                    if (closed) {
+                        return false;
+                    }
+                    try {
+                        ProcessOutputBuffer.this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String next() {
+            synchronized (ProcessOutputBuffer.this) {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return retainedAt(next++);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Process output is read only");
+        }
+    }
+
+    /**
+     * Keeps everything
+     */
+    static class All extends ProcessOutputBuffer {
+        private final List<String> lines = new ArrayList<String>();
+
+        @Override
+        void retain(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        long firstRetained() {
+            return 0;
+        }
+
+        @Override
+        String retainedAt(long sequence) {
+            return lines.get((int) sequence);
+        }
+
+        @Override
+        List<String> retained() {
+            return new ArrayList<String>(lines);
+        }
+    }
+
+    /**
+     * Keeps last lines in a ring buffer
+     */
+    static class LastLines extends ProcessOutputBuffer {
+        private final String[] ring;
+
+        LastLines(int lines) {
+            this.ring = new String[lines];
+        }
+
+        @Override
+        void retain(String line) {
+            ring[(int) (count() % ring.length)] = line;
+        }
+
+        @Override
+        long firstRetained() {
+            return Math.max(0, count() - ring.length);
+        }
+
+        @Override
+        String retainedAt(long sequence) {
+            return ring[(int) (sequence % ring.length)];
+        }
+    }
+
+    /**
+     * Keeps last lines up to given number of characters
+     */
+    static class LastCharacters extends ProcessOutputBuffer {
+        private final long maxCharacters;
+        private final List<String> lines = new ArrayList<String>();
+        private int head;
+        private long characters;
+
+        LastCharacters(long maxCharacters) {
+            this.maxCharacters = maxCharacters;
+        }
+
+        @Override
+        void retain(String line) {
+            lines.add(line);
+            characters += line.length();
+            while (characters > maxCharacters && lines.size() - head > 1) {
+                characters -= lines.get(head).length();
+                lines.set(head++, null);
+            }
+            // compact dropped lines once they take more than a half of the list
+            if (head > lines.size() / 2) {
+                lines.subList(0, head).clear();
+                head = 0;
+            }
+        }
+
+        @Override
+        long firstRetained() {
+            return count() - (lines.size() - head);
+        }
+
+        @Override
+        String retainedAt(long sequence) {
+            return lines.get((int) (sequence - firstRetained()) + head);
+        }
+    }
+
+    /**
+     * Keeps last lines in memory and the whole output in a temporary file after threshold was reached. The file is
+     * deleted once the buffer is disposed or garbage collected.
+     */
+    static class SpillToFile extends LastLines {
+        private final int threshold;
+        private File file;
+        private Writer writer;
+        private boolean discarded;
+
+        SpillToFile(int threshold) {
+            super(threshold);
+            this.threshold = threshold;
+        }
+
+        @Override
+        void retain(String line) {
+            try {
+                if (writer == null && !discarded && count() == threshold) {
+                    file = File.createTempFile("spacelift-output", ".log");
+                    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                        CharsetUtil.getUtf8OrDefault()));
+                    for (long i = 0; i < threshold; i++) {
+                        writer.write(retainedAt(i));
+                        writer.write('\n');
+                    }
+                }
+                if (writer != null) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new ExecutionException(e, "Unable to write process output to {0}", file);
+            }
+            super.retain(line);
+        }
+
+        @Override
+        List<String> retained() {
+            if (file == null) {
+                return super.retained();
+            }
+
+            BufferedReader reader = null;
+            try {
+                if (writer != null) {
+                    writer.flush();
+                }
+                List<String> lines = new ArrayList<String>();
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CharsetUtil.getUtf8OrDefault()));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+                return lines;
+            } catch (IOException e) {
+                throw new ExecutionException(e, "Unable to read process output from {0}", file);
+            } finally {
+                if (reader != null) {
+                    try {
+                        reader.close();
+                    } catch (IOException ignore) {
+                    }
+                }
+            }
+        }
+
+        @Override
+        void release() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignore) {
+                }
+                writer = null;
+            }
+        }
+
+        @Override
+        void discard() {
+            discarded = true;
+            if (file != null) {
+                file.delete();
+                file = null;
+            }
+        }
+
+        @Override
+        protected void finalize() throws Throwable {
+            try {
+                release();
+                discard();
+            } finally {
+                super.finalize();
+            }
+        }
+    }
+
+    /**
+     * Keeps nothing
+     */
+    static class Discard extends ProcessOutputBuffer {
+
+        @Override
+        void retain(String line) {
+        }
+
+        @Override
+        long firstRetained() {
+            return count();
+        }
+
+        @Override
+        String retainedAt(long sequence) {
+            throw new IndexOutOfBoundsException("Process output is discarded");
+        }
+
+        @Override
+        List<String> retained() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.process.ProcessInteractionMatcher;
+import org.arquillian.spacelift.process.Sentence;
+
+/**
+ * An engine that reads output of a running process, records it line by line and applies {@link ProcessInteractionApplicator}
+ * to it.
+ *
+ * Implementations differ in the granularity interaction patterns are evaluated with.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+abstract class ProcessOutputConsumer {
+
+    private static final Logger log = Logger.getLogger(ProcessOutputConsumer.class.getName());
+
+    protected final Execution<Process> runningProcess;
+    protected final ProcessInteractionApplicator interaction;
+    protected final OutputStream writer;
+    protected final ProcessOutputBuffer output;
+    protected final String processName;
+
+    static final int BUFFER = 8192;
+
+    protected ProcessOutputConsumer(Execution<Process> runningProcess, ProcessInteractionApplicator interaction,
+        OutputStream writer, ProcessOutputBuffer output, String processName) {
+        this.runningProcess = runningProcess;
+        this.interaction = interaction;
+        this.writer = writer;
+        this.output = output;
+        this.processName = processName;
+    }
+
+    /**
+     * Creates a consumer that evaluates interaction patterns only for complete lines and for prompts, that is for output
+     * that is not terminated by a newline and no more output is available at the moment.
+     */
+    static ProcessOutputConsumer lineBuffered(Execution<Process> runningProcess, ProcessInteractionApplicator interaction,
+        OutputStream writer, ProcessOutputBuffer output, String processName) {
+        return new LineBufferedOutputConsumer(runningProcess, interaction, writer, output, processName);
+    }
+
+    /**
+     * Creates a consumer that evaluates interaction patterns after every character read
+     */
+    static ProcessOutputConsumer perCharacter(Execution<Process> runningProcess, ProcessInteractionApplicator interaction,
+        OutputStream writer, ProcessOutputBuffer output, String processName) {
+        return new PerCharacterOutputConsumer(runningProcess, interaction, writer, output, processName);
+    }
+
+    /**
+     * Consumes the output of the process until EOF is reached or process is marked as finished
+     *
+     * @param reader output of the process
+     * @throws IOException if output could not be read
+     */
+    void consume(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER];
+        boolean reachedEOF = false;
+        int count;
+        while (!reachedEOF && (count = reader.read(buffer, 0, BUFFER)) != -1) {
+            reachedEOF = feed(buffer, count, reader.ready());
+        }
+        finish();
+    }
+
+    /**
+     * Processes a chunk of output. This allows the output to be pushed to the consumer instead of reading it from a
+     * {@link Reader}.
+     *
+     * @param buffer the output
+     * @param count number of characters in the buffer
+     * @param moreAvailable {@code true} if more output is available at the moment
+     * @return {@code true} if process was marked as finished and no more output should be consumed
+     * @throws IOException if reply could not be written to the process
+     */
+    abstract boolean feed(char[] buffer, int count, boolean moreAvailable) throws IOException;
+
+    /**
+     * Processes the rest of the output, once EOF was reached or process was marked as finished
+     *
+     * @throws IOException if reply could not be written to the process
+     */
+    abstract void finish() throws IOException;
+
+    /**
+     * Evaluates terminating and reply patterns against the {@code sentence}. If there is a reply, it is sent to the process
+     * and appended to the sentence.
+     *
+     * @param sentence current sentence
+     * @return {@code true} if process was marked as finished and no more output should be consumed
+     * @throws IOException if reply could not be written to the process
+     */
+    protected boolean interact(Sentence sentence) throws IOException {
+        int actions = interaction.evaluate(sentence, ProcessInteractionMatcher.TERMINATE | ProcessInteractionMatcher.REPLY);
+        boolean shouldTerminate = (actions & ProcessInteractionMatcher.TERMINATE) != 0;
+        String answer = interaction.reply();
+        // sentence was not empty, reply
+        if (answer != null) {
+            sentence.append(answer);
+            // standard and error output might be consumed concurrently
+            synchronized (writer) {
+                writer.flush();
+                writer.write(answer.getBytes());
+                writer.flush();
+            }
+        }
+        if (shouldTerminate) {
+            runningProcess.markAsFinished();
+            runningProcess.terminate();
+        }
+
+        return runningProcess.isMarkedAsFinished();
+    }
+
+    /**
+     * Saves the {@code sentence} and propagates it to the user, if requested by the interaction
+     *
+     * @param sentence sentence to be saved
+     */
+    protected void record(Sentence sentence) {
+        log.log(Level.FINEST, "({0}): {1}", new Object[] { processName, sentence });
+
+        output.add(sentence.toString());
+        // propagate output/error to user
+        int actions = interaction.evaluate(sentence, ProcessInteractionMatcher.OUTPUT | ProcessInteractionMatcher.ERROR);
+        if ((actions & ProcessInteractionMatcher.OUTPUT) != 0) {
+            System.out.println(interaction.transform(sentence));
+        }
+        if ((actions & ProcessInteractionMatcher.ERROR) != 0) {
+            System.err.println(interaction.transform(sentence));
+        }
+    }
+
+    /**
+     * Evaluates interaction patterns after every single character. This is required only for interactive prompts that are
+     * not terminated by a newline and the process does not flush them.
+     */
+    private static class PerCharacterOutputConsumer extends ProcessOutputConsumer {
+
+        private final Sentence sentence = new SentenceImpl();
+
+        PerCharacterOutputConsumer(Execution<Process> runningProcess, ProcessInteractionApplicator interaction,
+            OutputStream writer, ProcessOutputBuffer output, String processName) {
+            super(runningProcess, interaction, writer, output, processName);
+        }
+
+        @Override
+        boolean feed(char[] buffer, int count, boolean moreAvailable) throws IOException {
+            // we have an extra check to figure out whether EOF was reached - using last expected response
+            for (int i = 0; i < count; i++) {
+                // add the character
+                sentence.append(buffer[i]);
+
+                boolean reachedEOF = interact(sentence);
+
+                // save and print output
+                if (sentence.isFinished()) {
+                    sentence.trim();
+                    record(sentence);
+                    sentence.reset();
+                }
+                if (reachedEOF) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void finish() {
+            // handle last line
+            if (!sentence.isEmpty()) {
+                record(sentence);
+            }
+        }
+    }
+
+    /**
+     * Reads output in chunks and splits it into lines. Interaction patterns are evaluated once per line. A partial line is
+     * evaluated as well, if no more output is available at the moment, so interactive prompts without trailing newline
+     * are still answered.
+     */
+    private static class LineBufferedOutputConsumer extends ProcessOutputConsumer {
+
+        private final SentenceImpl sentence = new SentenceImpl();
+        // length of the partial sentence that was already evaluated as a prompt
+        private int evaluatedLength;
+        private boolean afterCarriageReturn;
+        private boolean reachedEOF;
+
+        LineBufferedOutputConsumer(Execution<Process> runningProcess, ProcessInteractionApplicator interaction,
+            OutputStream writer, ProcessOutputBuffer output, String processName) {
+            super(runningProcess, interaction, writer, output, processName);
+        }
+
+        @Override
+        boolean feed(char[] buffer, int count, boolean moreAvailable) throws IOException {
+            int lineStart = 0;
+            for (int i = 0; i < count && !reachedEOF; i++) {
+                char c = buffer[i];
+                if (c != '\n' && c != '\r') {
+                    continue;
+                }
+
+                sentence.append(buffer, lineStart, i - lineStart);
+                lineStart = i + 1;
+
+                // treat \r\n as a single line delimiter
+                if (c == '\n' && afterCarriageReturn && sentence.isEmpty()) {
+                    afterCarriageReturn = false;
+                    continue;
+                }
+                afterCarriageReturn = c == '\r';
+
+                reachedEOF = interact(sentence);
+                sentence.trim();
+                record(sentence);
+                sentence.reset();
+                evaluatedLength = 0;
+            }
+
+            if (reachedEOF) {
+                return true;
+            }
+
+            if (lineStart < count) {
+                sentence.append(buffer, lineStart, count - lineStart);
+                afterCarriageReturn = false;
+            }
+
+            // flush prompt if process does not have anything more to say
+            if (!sentence.isEmpty() && sentence.length() != evaluatedLength && !moreAvailable) {
+                reachedEOF = interact(sentence);
+                // reply might have finished the line
+                if (sentence.isFinished()) {
+                    sentence.trim();
+                    record(sentence);
+                    sentence.reset();
+                }
+                evaluatedLength = sentence.length();
+            }
+            return reachedEOF;
+        }
+
+        @Override
+        void finish() throws IOException {
+            // handle last line
+            if (!sentence.isEmpty()) {
+                if (!reachedEOF && sentence.length() != evaluatedLength) {
+                    interact(sentence);
+                }
+                record(sentence.trim());
+            }
+        }
+    }
+}
@@ -16,10 +16,15 @@
  */
 package org.arquillian.spacelift.task.os;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.process.StreamingProcessResult;
 
 /**
- * Holder of executed process that can be asynchronously set later on.
+ * Holder of executed process that can be asynchronously set later on. Once the process is set, its exit is watched by
+ * {@link ProcessExitWatcher}, so exit status can be read without querying the process.
  *
  * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
  *
@@ -28,6 +33,12 @@ class ProcessReference {
 
     private volatile Process process;
 
+    private volatile StreamingProcessResult result;
+
+    private volatile Integer exitValue;
+
+    private final List<ProcessExitListener> listeners = new ArrayList<ProcessExitListener>();
+
     private final String processName;
 
     public ProcessReference(String processName) {
@@ -44,6 +55,78 @@ class ProcessReference {
                 processName);
         }
         this.process = process;
+        ProcessExitWatcher.getInstance().watch(process, new ProcessExitListener() {
+            @Override
+            public void processExited(Process process, int exitValue) {
+                exited(exitValue);
+            }
+        });
+    }
+
+    /**
+     * Checks whether the process has exited, as reported by {@link ProcessExitWatcher}. Notification might be slightly
+     * delayed, use {@link #checkExited()} if exact state is required.
+     *
+     * @return
+     */
+    public boolean hasExited() {
+        return exitValue != null;
+    }
+
+    /**
+     * Checks whether the process has exited by querying the process itself
+     *
+     * @return
+     */
+    public boolean checkExited() {
+        if (exitValue == null && isInitialized() && ProcessExitWatcher.hasExited(process)) {
+            exited(process.exitValue());
+        }
+        return exitValue != null;
+    }
+
+    /**
+     * Returns exit value of the process
+     *
+     * @return
+     * @throws IllegalStateException if the process has not yet exited
+     */
+    public int getExitValue() throws IllegalStateException {
+        if (!checkExited()) {
+            throw new IllegalStateException("Process " + processName + " is not yet finished, cannot determine exit value.");
+        }
+        return exitValue;
+    }
+
+    /**
+     * Registers a listener notified when the process exits. If the process has already exited, listener is notified
+     * immediately.
+     *
+     * @param listener the listener
+     */
+    public void onExit(ProcessExitListener listener) {
+        synchronized (listeners) {
+            if (exitValue == null) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.processExited(process, exitValue);
+    }
+
+    private void exited(int value) {
+        List<ProcessExitListener> notified;
+        synchronized (listeners) {
+            if (exitValue != null) {
+                return;
+            }
+            exitValue = value;
+            notified = new ArrayList<ProcessExitListener>(listeners);
+            listeners.clear();
+        }
+        for (ProcessExitListener listener : notified) {
+            listener.processExited(process, value);
+        }
     }
 
     public synchronized Process getProcess() throws ExecutionException {
@@ -56,4 +139,22 @@ class ProcessReference {
 
         return process;
     }
+
+    /**
+     * Sets result of the process that is filled while the process is running
+     *
+     * @param result the result
+     */
+    public void setResult(StreamingProcessResult result) {
+        this.result = result;
+    }
+
+    /**
+     * Returns result of the process that is filled while the process is running
+     *
+     * @return the result or {@code null} if it is not available
+     */
+    public StreamingProcessResult getResult() {
+        return result;
+    }
 }
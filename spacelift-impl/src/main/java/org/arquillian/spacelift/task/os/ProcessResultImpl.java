@@ -19,6 +19,7 @@ package org.arquillian.spacelift.task.os;
 import java.util.List;
 
 import org.arquillian.spacelift.process.ProcessResult;
+import org.arquillian.spacelift.process.StreamingProcessResult;
 
 /**
  * Default implementation of {@link ProcessResult
@@ -26,16 +27,30 @@ import org.arquillian.spacelift.process.ProcessResult;
  * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
  *
  */
-class ProcessResultImpl implements ProcessResult {
+class ProcessResultImpl implements StreamingProcessResult {
 
     private final Process process;
     private final String processName;
-    private final List<String> output;
+    private final ProcessOutputBuffer output;
+    private final ProcessOutputBuffer errorOutput;
 
-    public ProcessResultImpl(final Process process, final String processName, final List<String> output) {
+    public ProcessResultImpl(final Process process, final String processName, final ProcessOutputBuffer output) {
+        this(process, processName, output, null);
+    }
+
+    public ProcessResultImpl(final Process process, final String processName, final ProcessOutputBuffer output,
+        final ProcessOutputBuffer errorOutput) {
         this.processName = processName;
         this.process = process;
         this.output = output;
+        if (errorOutput == null) {
+            // error output is merged with standard output
+            this.errorOutput = new ProcessOutputBuffer.Discard();
+            this.errorOutput.close();
+        }
+        else {
+            this.errorOutput = errorOutput;
+        }
     }
 
     @Override
@@ -45,7 +60,28 @@ class ProcessResultImpl implements ProcessResult {
 
     @Override
     public List<String> output() {
-        return output;
+        return output.lines();
+    }
+
+    @Override
+    public Iterable<String> followOutput() {
+        return output.follow();
+    }
+
+    @Override
+    public List<String> errorOutput() {
+        return errorOutput.lines();
+    }
+
+    @Override
+    public Iterable<String> followErrorOutput() {
+        return errorOutput.follow();
+    }
+
+    @Override
+    public void release() {
+        output.dispose();
+        errorOutput.dispose();
     }
 
     @Override
@@ -56,6 +56,19 @@ class SentenceImpl implements Sentence {
         return this;
     }
 
+    /**
+     * Appends a range of characters to sentence
+     *
+     * @param chars characters
+     * @param offset index of the first character to be appended
+     * @param length number of characters to be appended
+     * @return updated sequence
+     */
+    public Sentence append(char[] chars, int offset, int length) {
+        sb.append(chars, offset, length);
+        return this;
+    }
+
     @Override
     public Sentence prepend(char c) {
         sb.insert(0, c);
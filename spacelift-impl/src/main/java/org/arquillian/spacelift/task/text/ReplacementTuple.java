@@ -16,6 +16,7 @@
  */
 package org.arquillian.spacelift.task.text;
 
+import java.util.regex.Pattern;
 
 /**
  * A class for making the API of {@link StringReplacementTask} and {@link StringReplacementTool} fluent.
@@ -27,6 +28,7 @@ public class ReplacementTuple<PARENT> {
 
     private String regex;
     private String replacement;
+    private volatile Pattern pattern;
 
     /**
      * @param parent Should be an instance of the creator. It will be returned when replacement is set in
@@ -56,6 +58,20 @@ public class ReplacementTuple<PARENT> {
         return regex;
     }
 
+    /**
+     * Returns the regex compiled into a {@link Pattern}. It is compiled only once, on the first call.
+     *
+     * @throws java.util.regex.PatternSyntaxException If the regex is not valid
+     */
+    public Pattern getPattern() {
+        Pattern compiled = pattern;
+        if (compiled == null) {
+            compiled = Pattern.compile(regex);
+            pattern = compiled;
+        }
+        return compiled;
+    }
+
     /**
      * Returns the string to be used for the replacement.
      */
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled set of replacements that is applied in a single scan of the text. A replacer created from multiple
+ * {@link ReplacementTuple}s matches an alternation of all their regular expressions, each wrapped in a capturing group,
+ * and picks the replacement by the group that matched.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ */
+class Replacer {
+
+    private final Pattern pattern;
+    private final String[] replacements;
+    // capturing group wrapping i-th regular expression, empty for a single regular expression
+    private final int[] groups;
+
+    private Replacer(Pattern pattern, String[] replacements, int[] groups) {
+        this.pattern = pattern;
+        this.replacements = replacements;
+        this.groups = groups;
+    }
+
+    /**
+     * Creates a replacer for every tuple, to be applied one after another. Tuples with no regular expression or no
+     * replacement are ignored.
+     */
+    static List<Replacer> each(List<ReplacementTuple<?>> tuples) {
+        List<Replacer> replacers = new ArrayList<Replacer>();
+        for (ReplacementTuple<?> tuple : tuples) {
+            if (tuple.getRegex() != null && tuple.getReplacement() != null) {
+                replacers.add(new Replacer(tuple.getPattern(), new String[] { tuple.getReplacement() }, new int[0]));
+            }
+        }
+        return replacers;
+    }
+
+    /**
+     * Creates a single replacer for all tuples. At every position, the first tuple that matches is used and replaced
+     * text is not matched again. Tuples with no regular expression or no replacement are ignored.
+     */
+    static List<Replacer> combined(List<ReplacementTuple<?>> tuples) {
+        List<Replacer> replacers = each(tuples);
+        if (replacers.size() < 2) {
+            return replacers;
+        }
+
+        StringBuilder alternation = new StringBuilder();
+        String[] replacements = new String[replacers.size()];
+        int[] groups = new int[replacers.size()];
+        int group = 1;
+        for (int i = 0; i < replacers.size(); i++) {
+            Pattern pattern = replacers.get(i).pattern;
+            int groupCount = pattern.matcher("").groupCount();
+            if (i > 0) {
+                alternation.append('|');
+            }
+            alternation.append('(');
+            appendRenumbered(alternation, pattern.pattern(), '\\', group, groupCount);
+            alternation.append(')');
+
+            StringBuilder replacement = new StringBuilder();
+            appendRenumbered(replacement, replacers.get(i).replacements[0], '$', group, groupCount);
+            replacements[i] = replacement.toString();
+            groups[i] = group;
+            group += groupCount + 1;
+        }
+
+        List<Replacer> combined = new ArrayList<Replacer>();
+        combined.add(new Replacer(Pattern.compile(alternation.toString()), replacements, groups));
+        return combined;
+    }
+
+    /**
+     * Returns pattern matching all replaced text
+     */
+    Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns replacement string for the current match of {@code matcher}
+     */
+    String getReplacement(Matcher matcher) {
+        for (int i = 0; i < groups.length; i++) {
+            if (matcher.start(groups[i]) != -1) {
+                return replacements[i];
+            }
+        }
+        return replacements[0];
+    }
+
+    /**
+     * Replaces all matches in {@code text}
+     */
+    String replaceAll(String text) {
+        Matcher matcher = pattern.matcher(text);
+        if (!matcher.find()) {
+            return text;
+        }
+        StringBuffer replaced = new StringBuffer(text.length() + 16);
+        do {
+            matcher.appendReplacement(replaced, getReplacement(matcher));
+        } while (matcher.find());
+        matcher.appendTail(replaced);
+        return replaced.toString();
+    }
+
+    /**
+     * Copies {@code text} shifting group references introduced by {@code marker} by {@code group}. References are
+     * parsed the same way as {@link Matcher#appendReplacement(StringBuffer, String)} does, a digit following a
+     * reference is separated from it so it does not become a part of shifted reference.
+     */
+    private static void appendRenumbered(StringBuilder target, String text, char marker, int group, int groupCount) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && marker == '\\' && i + 1 < length && text.charAt(i + 1) == 'Q') {
+                // quoted text is copied as is
+                int end = text.indexOf("\\E", i + 2);
+                end = end == -1 ? length : end + 2;
+                target.append(text, i, end);
+                i = end - 1;
+            } else if (c == marker && i + 1 < length && isDigit(text.charAt(i + 1))
+                && (marker == '$' || text.charAt(i + 1) != '0')) {
+                // \0 in a regular expression starts an octal escape
+                int reference = text.charAt(++i) - '0';
+                while (i + 1 < length && isDigit(text.charAt(i + 1))
+                    && reference * 10 + text.charAt(i + 1) - '0' <= groupCount) {
+                    reference = reference * 10 + text.charAt(++i) - '0';
+                }
+                boolean digitFollows = i + 1 < length && isDigit(text.charAt(i + 1));
+                if (digitFollows && marker == '\\') {
+                    target.append("(?:").append(marker).append(reference + group).append(')');
+                } else if (digitFollows) {
+                    target.append(marker).append(reference + group).append('\\');
+                } else {
+                    target.append(marker).append(reference + group);
+                }
+            } else if (c == '\\' && i + 1 < length) {
+                target.append(c).append(text.charAt(++i));
+            } else {
+                target.append(c);
+            }
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Matcher;
+
+/**
+ * A reader that replaces all matches of a {@link Replacer} in the underlying reader, with the same result as
+ * {@link Replacer#replaceAll(String)} applied to the whole content.
+ *
+ * The content is processed in chunks. Text is released only if no match that can still change by reading more input
+ * can start in it. The last {@code window} characters of a chunk that might be a beginning of such match are kept for
+ * the next chunk, together with {@code window} already released characters for lookbehinds and boundaries. Hence
+ * matches longer than the window are found only if the matcher detects that they are still in progress.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ */
+class ReplacingReader extends Reader {
+
+    private final Reader source;
+    private final Replacer replacer;
+    private final int window;
+
+    // already released characters at the beginning, followed by characters to be processed
+    private final StringBuilder input;
+    private int context;
+    private boolean emptyMatchAtStart;
+    private boolean eof;
+    private boolean anyReplaced;
+
+    private final StringBuffer output = new StringBuffer();
+    private int outputPosition;
+
+    ReplacingReader(Reader source, Replacer replacer, int window) {
+        this.source = source;
+        this.replacer = replacer;
+        this.window = window;
+        this.input = new StringBuilder(window * 3);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (outputPosition == output.length()) {
+            if (eof && input.length() == context) {
+                return -1;
+            }
+            output.setLength(0);
+            outputPosition = 0;
+            replaceChunk();
+        }
+        int count = Math.min(len, output.length() - outputPosition);
+        output.getChars(outputPosition, outputPosition + count, cbuf, off);
+        outputPosition += count;
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if at least one match was replaced by a different text so far
+     */
+    boolean hasReplaced() {
+        return anyReplaced;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private void replaceChunk() throws IOException {
+        fill(input.length() + 2 * window);
+
+        int length = input.length();
+        Matcher matcher = replacer.getPattern().matcher(input).region(context, length).useTransparentBounds(true)
+            .useAnchoringBounds(false);
+
+        int position = context;
+        // appendReplacement copies the input from here, the beginning of the input at first
+        int appendPosition = 0;
+        int release = -1;
+        boolean replaced = false;
+        boolean lastMatchEmpty = false;
+        while (matcher.find()) {
+            if (!eof && (matcher.hitEnd() || matcher.requireEnd())) {
+                // more input might extend or cancel this match
+                release = matcher.start();
+                break;
+            }
+            if (emptyMatchAtStart && matcher.end() == context) {
+                // already replaced as a part of previous chunk
+                continue;
+            }
+            int replacementStart = output.length() + matcher.start() - appendPosition;
+            matcher.appendReplacement(output, replacer.getReplacement(matcher));
+            if (!anyReplaced && !matchedTextEquals(matcher, replacementStart)) {
+                anyReplaced = true;
+            }
+            replaced = true;
+            position = matcher.end();
+            appendPosition = position;
+            lastMatchEmpty = matcher.start() == matcher.end();
+        }
+        if (eof) {
+            release = length;
+        } else if (release == -1) {
+            release = matcher.hitEnd() ? Math.max(position, length - window) : length;
+        }
+
+        // appendReplacement copied the released characters from the beginning of the input as well
+        if (replaced) {
+            output.delete(0, context);
+        }
+        output.append(input, position, release);
+
+        if (release == context && !replaced) {
+            // nothing could be released, match is longer than the window, next chunk will read more
+            return;
+        }
+
+        int start = Math.max(0, release - window);
+        input.delete(0, start);
+        context = release - start;
+        emptyMatchAtStart = lastMatchEmpty && position == release;
+    }
+
+    /**
+     * Returns {@code true} if text matched by {@code matcher} is the same as its replacement appended to the output from
+     * {@code replacementStart}
+     */
+    private boolean matchedTextEquals(Matcher matcher, int replacementStart) {
+        int length = matcher.end() - matcher.start();
+        if (output.length() - replacementStart != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (output.charAt(replacementStart + i) != input.charAt(matcher.start() + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fill(int size) throws IOException {
+        char[] buffer = new char[Math.max(1, Math.min(size - input.length(), 8192))];
+        while (!eof && input.length() < size) {
+            int read = source.read(buffer, 0, Math.min(buffer.length, size - input.length()));
+            if (read == -1) {
+                eof = true;
+            } else {
+                input.append(buffer, 0, read);
+            }
+        }
+    }
+}
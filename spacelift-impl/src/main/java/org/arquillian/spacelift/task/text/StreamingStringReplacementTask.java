@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.text;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.arquillian.spacelift.task.ChunkSink;
+import org.arquillian.spacelift.task.StreamingTask;
+
+/**
+ * Streaming variant of {@link StringReplacementTask}. Its input is a stream of {@link Map}s of files to their contents
+ * and it emits the maps with all replacements applied.
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class StreamingStringReplacementTask extends StreamingTask<Map<File, String>, Map<File, String>> {
+
+    private final StringReplacementTask replacement = new StringReplacementTask();
+
+    /**
+     * Set a regular expression to be used for the replacement. You will then be able to specify the replacement string.
+     *
+     * @see StringReplacementTask#replace(String)
+     */
+    public ReplacementTuple<StreamingStringReplacementTask> replace(String regex) {
+        ReplacementTuple<StreamingStringReplacementTask> tuple = new ReplacementTuple<StreamingStringReplacementTask>(
+            this, regex);
+        replacement.replace(Collections.<ReplacementTuple<?>> singletonList(tuple));
+        return tuple;
+    }
+
+    /**
+     * Add a collection of replacements, in case you do not want to use the fluent API.
+     */
+    public StreamingStringReplacementTask replace(Collection<ReplacementTuple<?>> replacements) {
+        replacement.replace(replacements);
+        return this;
+    }
+
+    /**
+     * Applies all replacements in a single scan of the content.
+     *
+     * @see StringReplacementTask#singlePass()
+     */
+    public StreamingStringReplacementTask singlePass() {
+        replacement.singlePass();
+        return this;
+    }
+
+    @Override
+    protected void process(Map<File, String> contents, ChunkSink<Map<File, String>> output) throws Exception {
+        // replacement updates the entries, the chunk might be shared or unmodifiable
+        output.emit(replacement.process(new HashMap<File, String>(contents)));
+    }
+}
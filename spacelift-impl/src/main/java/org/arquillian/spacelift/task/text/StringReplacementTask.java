@@ -33,6 +33,7 @@ import org.arquillian.spacelift.task.Task;
  */
 public class StringReplacementTask extends Task<Map<File, String>, Map<File, String>> {
     private List<ReplacementTuple<?>> replacements = new ArrayList<ReplacementTuple<?>>();
+    private boolean singlePass;
 
     /**
      * Set a regular expression to be used for the replacement. You will then be able to specify the replacement string.
@@ -54,17 +55,25 @@ public class StringReplacementTask extends Task<Map<File, String>, Map<File, Str
         return this;
     }
 
+    /**
+     * Applies all replacements in a single scan of the content, instead of one scan per replacement. At every position,
+     * the first replacement whose regular expression matches is used and the replaced text is not matched by the
+     * following replacements again.
+     */
+    public StringReplacementTask singlePass() {
+        this.singlePass = true;
+        return this;
+    }
+
     @Override
     protected Map<File, String> process(Map<File, String> input) throws Exception {
-        for (File file : input.keySet()) {
-            String content = input.get(file);
-            for (ReplacementTuple<?> tuple : replacements) {
-                if (tuple.getRegex() == null || tuple.getReplacement() == null) {
-                    continue;
-                }
-                content = content.replaceAll(tuple.getRegex(), tuple.getReplacement());
+        List<Replacer> replacers = singlePass ? Replacer.combined(replacements) : Replacer.each(replacements);
+        for (Map.Entry<File, String> entry : input.entrySet()) {
+            String content = entry.getValue();
+            for (Replacer replacer : replacers) {
+                content = replacer.replaceAll(content);
             }
-            input.put(file, content);
+            entry.setValue(content);
         }
 
         return input;
@@ -17,32 +17,62 @@
 package org.arquillian.spacelift.task.text;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.task.InjectTask;
 import org.arquillian.spacelift.task.Task;
-import org.arquillian.spacelift.task.io.FileReader;
-import org.arquillian.spacelift.task.io.FileSelector;
-import org.arquillian.spacelift.task.io.FileWriter;
 import org.arquillian.spacelift.util.CharsetUtil;
+import org.arquillian.spacelift.util.FileUtil;
 
 /**
  * Tool for string replacement inside files. It has no input and outputs list of modified files. To select the files
  * to be processed, use {@link #in(File...)} or {@link #in(String)}. All the files you select for processing has to
  * be using the same charset. If you wish to replace files with different charsets,
  * you need to use this task multiple times and use {@link #charset(Charset)} to set the charset of processed files.
+ * <p/>
+ * Files are streamed, so they are never loaded into memory as a whole. A match of a regular expression is guaranteed
+ * to be found only if it is not longer than {@link #window(int)}. New content is written into a temporary file, which
+ * is then moved over the original file, so a failure to read a file or to replace strings never leaves it partially
+ * rewritten. The moved file gets permissions of the original file, see {@link FileUtil#replace(File, File)}, and a
+ * symbolic link is kept, as the file it points to is replaced. With {@link #inPlace()}, the new content is copied into
+ * the original file instead. Files can be processed in parallel by {@link #parallelism(int)}, using the execution
+ * service the tool was created with. A failure to process a file does not stop processing of the other files, all the
+ * failures are reported together once all files are processed. With {@link #writeIfChanged()}, files with no match are
+ * not rewritten at all.
  *
  * @author <a href="mailto:smikloso@redhat.com">Stefan Miklosovic</a>
  * @author <a href="mailto:tkriz@redhat.com">Tadeas Kriz</a>
  */
 public class StringReplacementTool extends Task<Object, List<File>> {
 
+    /**
+     * Default length of the longest match, in characters
+     */
+    public static final int DEFAULT_WINDOW = 64 * 1024;
+
+    private static final int MAX_REPORTED_FAILURES = 10;
+
     private Charset charset = CharsetUtil.getUtf8OrDefault();
     private List<File> files = new ArrayList<File>();
     private List<ReplacementTuple<?>> replacements = new ArrayList<ReplacementTuple<?>>();
+    private int window = DEFAULT_WINDOW;
+    private boolean singlePass;
+    private int parallelism = 1;
+    private boolean writeIfChanged;
+    private boolean inPlace;
 
     /**
      * Adds files to the list to be processed by the tool.
@@ -85,17 +115,252 @@ public class StringReplacementTool extends Task<Object, List<File>> {
         return this;
     }
 
+    /**
+     * Sets the length of the longest text, in characters, a regular expression is expected to match. Longer matches
+     * might be missed if they cross boundary of chunks the files are processed in.
+     */
+    public StringReplacementTool window(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive, was " + window);
+        }
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * Applies all replacements in a single scan of the content, instead of one scan per replacement. At every position,
+     * the first replacement whose regular expression matches is used and the replaced text is not matched by the
+     * following replacements again.
+     */
+    public StringReplacementTool singlePass() {
+        this.singlePass = true;
+        return this;
+    }
+
+    /**
+     * Sets how many files can be processed at the same time. The default is {@code 1}, which processes files one by
+     * one in the thread executing the tool.
+     */
+    public StringReplacementTool parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Processes files in parallel, using as many threads as there are available processors.
+     */
+    public StringReplacementTool parallel() {
+        return parallelism(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Leaves files where no regular expression matched untouched, instead of rewriting them with the same content, and
+     * makes the tool output only the files that were modified.
+     */
+    public StringReplacementTool writeIfChanged() {
+        this.writeIfChanged = true;
+        return this;
+    }
+
+    /**
+     * Copies the new content into the original file instead of moving it over the original file, so the file keeps its
+     * owner and hard links, see {@link FileUtil#overwrite(File, File)}. A failure to copy the content might leave the
+     * file partially written.
+     */
+    public StringReplacementTool inPlace() {
+        this.inPlace = true;
+        return this;
+    }
+
     @Override
     protected List<File> process(Object input) throws Exception {
+        List<Replacer> replacers = singlePass ? Replacer.combined(replacements) : Replacer.each(replacements);
+        FileReplacement replacement = new FileReplacement(replacers, charset, window, writeIfChanged, inPlace);
+
         // FIXME should we remove the processed files from #files list?
-        return Spacelift.task(FileSelector.class)
-            .select(files)
-            .then(FileReader.class)
-            .charset(charset)
-            .then(StringReplacementTask.class)
-            .replace(replacements)
-            .then(FileWriter.class)
-            .charset(charset)
-            .execute().await();
+        List<Outcome> outcomes;
+        if (parallelism > 1 && files.size() > 1) {
+            // a few batches per thread keep threads busy even if file sizes differ
+            int batchSize = Math.max(1, files.size() / (parallelism * 4));
+            outcomes = new InjectTask<List<File>>().passToNext(files)
+                .then(Task.<File, Outcome> map(getExecutionService()).eachBatch(batchSize, replacement)
+                    .parallelism(parallelism))
+                .execute().await();
+        } else {
+            outcomes = Collections.singletonList(replacement.process(files));
+        }
+
+        List<File> modified = new ArrayList<File>();
+        Map<File, Exception> failures = new LinkedHashMap<File, Exception>();
+        for (Outcome outcome : outcomes) {
+            modified.addAll(outcome.modified);
+            failures.putAll(outcome.failures);
+        }
+        if (!failures.isEmpty()) {
+            throw failure(failures);
+        }
+        return writeIfChanged ? modified : new ArrayList<File>(files);
+    }
+
+    private ExecutionException failure(Map<File, Exception> failures) {
+        StringBuilder report = new StringBuilder();
+        int reported = 0;
+        for (Map.Entry<File, Exception> failure : failures.entrySet()) {
+            if (reported++ == MAX_REPORTED_FAILURES) {
+                report.append(", ...");
+                break;
+            }
+            report.append(reported > 1 ? ", " : "").append(failure.getKey().getAbsolutePath()).append(" (")
+                .append(failure.getValue()).append(')');
+        }
+        return new ExecutionException(failures.values().iterator().next(),
+            "Unable to replace strings in {0} of {1} files, all the other files were replaced: {2}", failures.size(),
+            files.size(), report);
+    }
+
+    /**
+     * Files modified and files failed by a {@link FileReplacement}
+     */
+    private static class Outcome {
+        final List<File> modified = new ArrayList<File>();
+        final Map<File, Exception> failures = new LinkedHashMap<File, Exception>();
+    }
+
+    /**
+     * Replaces strings in a list of files. A file is left untouched if strings cannot be replaced in it.
+     */
+    private static class FileReplacement extends Task<List<File>, Outcome> {
+
+        private final List<Replacer> replacers;
+        private final Charset charset;
+        private final int window;
+        private final boolean writeIfChanged;
+        private final boolean inPlace;
+
+        FileReplacement(List<Replacer> replacers, Charset charset, int window, boolean writeIfChanged, boolean inPlace) {
+            this.replacers = replacers;
+            this.charset = charset;
+            this.window = window;
+            this.writeIfChanged = writeIfChanged;
+            this.inPlace = inPlace;
+        }
+
+        @Override
+        protected Outcome process(List<File> input) {
+            Outcome outcome = new Outcome();
+            for (File file : input) {
+                try {
+                    if (replace(file)) {
+                        outcome.modified.add(file);
+                    }
+                } catch (Exception e) {
+                    outcome.failures.put(file, e);
+                }
+            }
+            return outcome;
+        }
+
+        private boolean replace(File file) throws IOException {
+            // a symbolic link stays, the file it points to is replaced
+            File target = inPlace ? file : file.getCanonicalFile();
+            File temp = null;
+            Reader reader = null;
+            Writer writer = null;
+            try {
+                reader = new InputStreamReader(new FileInputStream(file), charset);
+                List<ReplacingReader> replacingReaders = new ArrayList<ReplacingReader>(replacers.size());
+                for (Replacer replacer : replacers) {
+                    ReplacingReader replacingReader = new ReplacingReader(reader, replacer, window);
+                    replacingReaders.add(replacingReader);
+                    reader = replacingReader;
+                }
+
+                // until the first replacement, the text read is the same as the content of the file, so it is only
+                // counted and an unchanged file is neither encoded nor written
+                long unchanged = 0;
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                    if (writer == null) {
+                        if (writeIfChanged && !anyReplaced(replacingReaders)) {
+                            unchanged += read;
+                            continue;
+                        }
+                        temp = FileUtil.createTempSibling(target);
+                        writer = startWriting(file, temp, unchanged);
+                    }
+                    writer.write(buffer, 0, read);
+                }
+                reader.close();
+                reader = null;
+
+                if (writer == null) {
+                    if (writeIfChanged && !anyReplaced(replacingReaders)) {
+                        return false;
+                    }
+                    temp = FileUtil.createTempSibling(target);
+                    writer = startWriting(file, temp, unchanged);
+                }
+                writer.close();
+                writer = null;
+
+                if (inPlace) {
+                    FileUtil.overwrite(temp, file);
+                } else {
+                    FileUtil.replace(temp, target);
+                    temp = null;
+                }
+                return true;
+            } finally {
+                if (reader != null) {
+                    reader.close();
+                }
+                if (writer != null) {
+                    writer.close();
+                }
+                FileUtil.deleteQuietly(temp);
+            }
+        }
+
+        /**
+         * Opens a writer to {@code temp} and copies there first {@code unchanged} characters of {@code file}
+         */
+        private Writer startWriting(File file, File temp, long unchanged) throws IOException {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(temp), charset);
+            if (unchanged == 0) {
+                return writer;
+            }
+            Reader reader = new InputStreamReader(new FileInputStream(file), charset);
+            try {
+                char[] buffer = new char[8192];
+                long remaining = unchanged;
+                int read;
+                while (remaining > 0 && (read = reader.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    writer.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                if (remaining > 0) {
+                    throw new IOException("File " + file.getAbsolutePath() + " was truncated while being replaced");
+                }
+                return writer;
+            } catch (IOException e) {
+                writer.close();
+                throw e;
+            } finally {
+                reader.close();
+            }
+        }
+
+        private static boolean anyReplaced(List<ReplacingReader> readers) {
+            for (ReplacingReader reader : readers) {
+                if (reader.hasReplaced()) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+
+/**
+ * An utility class for replacing content of files on Java lower than 1.7. A new content is written into a temporary
+ * file created by {@link #createTempSibling(File)} and then either moved over the original file by
+ * {@link #replace(File, File)}, so readers never see a partially written file, or copied into the original file by
+ * {@link #overwrite(File, File)}, which keeps all attributes of the original file.
+ */
+public class FileUtil {
+
+    private FileUtil() {
+        throw new UnsupportedOperationException("No instantiation");
+    }
+
+    /**
+     * Creates an empty temporary file in the same directory as {@code file}, so it can be later renamed to
+     * {@code file} without copying its content.
+     *
+     * @param file The file to be replaced
+     * @return The temporary file
+     * @throws IOException If temporary file cannot be created
+     */
+    public static File createTempSibling(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        return File.createTempFile("." + file.getName() + "-", ".tmp", directory);
+    }
+
+    /**
+     * Copies content of {@code source} into {@code target}, overwriting its content in place. As {@code target} is not
+     * replaced by another file, it keeps its permissions, owner, hard links and, if it is a symbolic link, it stays a
+     * link and the file it points to is overwritten. A failure might leave {@code target} partially written. If
+     * {@code source} shrinks while being copied, only the part that is still there is copied.
+     *
+     * @param source The file with new content, it is not deleted
+     * @param target The file to be overwritten
+     * @throws IOException If content cannot be copied
+     */
+    public static void overwrite(File source, File target) throws IOException {
+        FileInputStream in = new FileInputStream(source);
+        try {
+            FileOutputStream out = new FileOutputStream(target);
+            try {
+                FileChannel sourceChannel = in.getChannel();
+                FileChannel targetChannel = out.getChannel();
+                long size = sourceChannel.size();
+                long position = 0;
+                while (position < size) {
+                    long transferred = sourceChannel.transferTo(position, size - position, targetChannel);
+                    if (transferred <= 0) {
+                        // source was truncated meanwhile
+                        break;
+                    }
+                    position += transferred;
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Moves {@code source} to {@code target}, replacing it atomically. Permissions of the original {@code target} are
+     * copied to {@code source} first. Java lower than 1.7 cannot read permissions of group and others, so there
+     * {@code source} gets only the permissions the current user has for {@code target}, granted to the owner, and it is
+     * never made accessible to other users. Owner and group of {@code target} are not copied, hard links to
+     * {@code target} keep the original content and a symbolic link is replaced by a regular file. Use
+     * {@link #overwrite(File, File)} to keep them. If {@code target} cannot be replaced directly, which happens on
+     * Windows, it is deleted first and the move is no longer atomic.
+     *
+     * @param source The file with new content, typically created by {@link #createTempSibling(File)}
+     * @param target The file to be replaced
+     * @throws IOException If permissions cannot be copied or {@code source} cannot be moved
+     */
+    public static void replace(File source, File target) throws IOException {
+        if (target.exists()) {
+            copyPermissions(target, source);
+        }
+        if (source.renameTo(target)) {
+            return;
+        }
+        if (target.delete() && source.renameTo(target)) {
+            return;
+        }
+        throw new IOException("Unable to move " + source.getAbsolutePath() + " to " + target.getAbsolutePath());
+    }
+
+    /**
+     * Deletes {@code file} if it exists, ignoring failures. Meant for cleaning temporary files after a failure.
+     *
+     * @param file The file to be deleted, can be {@code null}
+     */
+    public static void deleteQuietly(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static void copyPermissions(File from, File to) throws IOException {
+        if (copyPosixPermissions(from, to)) {
+            return;
+        }
+        // Windows files inherit access rights of the directory, otherwise no one but the owner gets any access
+        if (File.separatorChar == '\\') {
+            to.setWritable(from.canWrite());
+            return;
+        }
+        boolean restricted = to.setReadable(false, false) && to.setWritable(false, false)
+            && to.setExecutable(false, false)
+            && to.setReadable(from.canRead(), true) && to.setWritable(from.canWrite(), true)
+            && to.setExecutable(from.canExecute(), true);
+        if (!restricted) {
+            throw new IOException("Unable to copy permissions of " + from.getAbsolutePath() + " to "
+                + to.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Copies POSIX permissions by java.nio.file, if running on Java 1.7 or higher and the file system supports them
+     */
+    private static boolean copyPosixPermissions(File from, File to) throws IOException {
+        try {
+            Class<?> files = Class.forName("java.nio.file.Files");
+            Class<?> path = Class.forName("java.nio.file.Path");
+            Class<?> linkOption = Class.forName("java.nio.file.LinkOption");
+            Object noLinkOptions = Array.newInstance(linkOption, 0);
+            Method toPath = File.class.getMethod("toPath");
+
+            Object permissions = files.getMethod("getPosixFilePermissions", path, noLinkOptions.getClass())
+                .invoke(null, toPath.invoke(from), noLinkOptions);
+            files.getMethod("setPosixFilePermissions", path, Set.class).invoke(null, toPath.invoke(to), permissions);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof UnsupportedOperationException) {
+                // file system is not POSIX
+                return false;
+            }
+            throw new IOException("Unable to copy permissions of " + from.getAbsolutePath() + " to "
+                + to.getAbsolutePath(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.execution.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.impl.BoundedExecutionService.Configuration;
+import org.arquillian.spacelift.execution.impl.BoundedExecutionService.RejectionPolicy;
+import org.arquillian.spacelift.task.TaskCallable;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests rejection policies and task type limits of {@link BoundedExecutionService}
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class BoundedExecutionServiceTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void failWhenQueueIsFull() throws Exception {
+        BoundedExecutionService service = new BoundedExecutionService(new Configuration().coreThreads(1).maxThreads(1)
+            .queueSize(1).rejectionPolicy(RejectionPolicy.FAIL));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(new Blocking(started, release));
+        started.await(5, TimeUnit.SECONDS);
+        service.execute(new Blocking(null, release));
+
+        Assert.assertThat(service.getActiveCount(), is(1));
+        Assert.assertThat(service.getQueueDepth(), is(1));
+
+        try {
+            exception.expect(ExecutionException.class);
+            exception.expectMessage("queue is full");
+            service.execute(new Blocking(null, release));
+        } finally {
+            Assert.assertThat(service.getRejectedCount(), is(1L));
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void callerRunsWhenQueueIsFull() throws Exception {
+        BoundedExecutionService service = new BoundedExecutionService(new Configuration().coreThreads(1).maxThreads(1)
+            .queueSize(0).rejectionPolicy(RejectionPolicy.CALLER_RUNS));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(new Blocking(started, release));
+        started.await(5, TimeUnit.SECONDS);
+
+        Execution<Thread> execution = service.execute(new Callable<Thread>() {
+            @Override
+            public Thread call() throws Exception {
+                return Thread.currentThread();
+            }
+        });
+
+        Assert.assertThat(execution.isFinished(), is(true));
+        Assert.assertThat(execution.await(), is(Thread.currentThread()));
+        Assert.assertThat(service.getRejectedCount(), is(1L));
+        release.countDown();
+    }
+
+    @Test
+    public void blockedWorkerRunsNestedCallable() throws Exception {
+        final BoundedExecutionService service = new BoundedExecutionService(new Configuration().coreThreads(1)
+            .maxThreads(1).queueSize(0).rejectionPolicy(RejectionPolicy.BLOCK));
+
+        Integer result = service.execute(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return service.execute(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return 42;
+                    }
+                }).await();
+            }
+        }).awaitAtMost(5, TimeUnit.SECONDS);
+
+        Assert.assertThat(result, is(42));
+    }
+
+    @Test
+    public void nestedExecutionsWithDefaults() throws Exception {
+        final BoundedExecutionService service = new BoundedExecutionService(new Configuration());
+        int outer = 2 * Runtime.getRuntime().availableProcessors();
+        // all outer callables occupy a thread at the same time before they execute nested ones
+        final CountDownLatch allRunning = new CountDownLatch(outer);
+
+        List<Execution<Integer>> executions = new ArrayList<Execution<Integer>>();
+        for (int i = 0; i < outer; i++) {
+            final int value = i;
+            executions.add(service.execute(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    allRunning.countDown();
+                    if (!allRunning.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Outer callables were not running at the same time");
+                    }
+                    return service.execute(new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return value;
+                        }
+                    }).awaitAtMost(5, TimeUnit.SECONDS);
+                }
+            }));
+        }
+
+        for (int i = 0; i < outer; i++) {
+            Assert.assertThat(executions.get(i).awaitAtMost(10, TimeUnit.SECONDS), is(i));
+        }
+    }
+
+    @Test
+    public void limitTaskType() throws Exception {
+        BoundedExecutionService service = new BoundedExecutionService(new Configuration().coreThreads(8).maxThreads(8)
+            .limit(Limited.class, 2));
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Execution<Integer>> executions = new ArrayList<Execution<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            executions.add(service.execute(new Limited(running, maxRunning)));
+        }
+
+        Assert.assertThat(service.getDeferredCount() > 0, is(true));
+
+        for (Execution<Integer> execution : executions) {
+            execution.awaitAtMost(5, TimeUnit.SECONDS);
+        }
+
+        Assert.assertThat(maxRunning.get(), is(2));
+        Assert.assertThat(service.getDeferredCount(), is(0));
+    }
+
+    @Test
+    public void deferredCallableIsDispatchedBySaturatedPool() throws Exception {
+        BoundedExecutionService service = new BoundedExecutionService(new Configuration().coreThreads(1).maxThreads(1)
+            .queueSize(0).rejectionPolicy(RejectionPolicy.BLOCK).limit(Limited.class, 1));
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Execution<Integer> first = service.execute(new Limited(running, maxRunning));
+        Execution<Integer> deferred = service.execute(new Limited(running, maxRunning));
+
+        // the only thread of the pool finishes the first callable and dispatches the deferred one
+        Assert.assertThat(first.awaitAtMost(5, TimeUnit.SECONDS), is(1));
+        Assert.assertThat(deferred.awaitAtMost(5, TimeUnit.SECONDS), is(1));
+    }
+
+    @Test
+    public void configurationFromSystemProperties() throws Exception {
+        System.setProperty("spacelift.execution.rejectionPolicy", "caller_runs");
+        System.setProperty("spacelift.execution.limits", Limited.class.getName() + "=3, foo.Bar=1");
+        try {
+            new BoundedExecutionService();
+        } finally {
+            System.clearProperty("spacelift.execution.rejectionPolicy");
+            System.clearProperty("spacelift.execution.limits");
+        }
+
+        System.setProperty("spacelift.execution.queueSize", "many");
+        try {
+            exception.expect(IllegalArgumentException.class);
+            exception.expectMessage("spacelift.execution.queueSize");
+            new BoundedExecutionService();
+        } finally {
+            System.clearProperty("spacelift.execution.queueSize");
+        }
+    }
+
+    private static class Blocking implements Callable<Void> {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        Blocking(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            if (started != null) {
+                started.countDown();
+            }
+            release.await();
+            return null;
+        }
+    }
+
+    private static class Limited implements TaskCallable<Integer> {
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+
+        Limited(AtomicInteger running, AtomicInteger maxRunning) {
+            this.running = running;
+            this.maxRunning = maxRunning;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            int current = running.incrementAndGet();
+            synchronized (maxRunning) {
+                maxRunning.set(Math.max(maxRunning.get(), current));
+            }
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return current;
+        }
+
+        @Override
+        public Class<?> getTaskType() {
+            return Limited.class;
+        }
+    }
+}
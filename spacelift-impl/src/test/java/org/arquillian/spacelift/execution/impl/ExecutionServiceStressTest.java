@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.execution.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares execution services on tasks that block while waiting for other executions
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ExecutionServiceStressTest {
+
+    private static final Logger log = Logger.getLogger(ExecutionServiceStressTest.class.getName());
+
+    private static final int TASKS = 500;
+    private static final long BLOCKING_MILLIS = 20;
+
+    private ExecutionServiceImpl service;
+
+    @After
+    public void shutdown() {
+        if (service != null) {
+            service.getService().shutdownNow();
+            service.getScheduledService().shutdownNow();
+        }
+    }
+
+    @Test
+    public void cachedThreadPool() throws Exception {
+        service = new ExecutionServiceImpl();
+        stress(service);
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+        service = new VirtualThreadExecutionService();
+        stress(service);
+    }
+
+    private void stress(final ExecutionService service) throws Exception {
+        long start = System.nanoTime();
+
+        List<Execution<Integer>> executions = new ArrayList<Execution<Integer>>();
+        for (int i = 0; i < TASKS; i++) {
+            final int value = i;
+            // every task waits for another one, as chained tasks do
+            executions.add(service.execute(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return service.execute(new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            Thread.sleep(BLOCKING_MILLIS);
+                            return value;
+                        }
+                    }).await();
+                }
+            }));
+        }
+
+        for (int i = 0; i < TASKS; i++) {
+            Assert.assertThat(executions.get(i).await(), is(i));
+            Assert.assertThat(executions.get(i).isFinished(), is(true));
+        }
+
+        log.info(service.getClass().getSimpleName() + " executed " + TASKS + " blocking task pairs in "
+            + (System.nanoTime() - start) / 1000000 + " ms, virtual threads supported: "
+            + VirtualThreadExecutionService.isSupported());
+    }
+}
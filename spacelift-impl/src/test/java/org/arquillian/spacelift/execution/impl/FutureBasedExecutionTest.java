@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.execution.impl;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionCondition;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.TimeoutExecutionException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * Tests re-execution of {@link FutureBasedExecution}
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class FutureBasedExecutionTest {
+
+    private static final ExecutionCondition<Integer> AT_LEAST_FIVE = new ExecutionCondition<Integer>() {
+        @Override
+        public boolean satisfiedBy(Integer object) throws ExecutionException {
+            return object >= 5;
+        }
+    };
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void concurrentPolling() throws Exception {
+        final ExecutionServiceImpl service = new ExecutionServiceImpl();
+
+        List<Execution<Integer>> pollers = new ArrayList<Execution<Integer>>();
+        for (int i = 0; i < 200; i++) {
+            pollers.add(service.execute(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return service.execute(new Counter()).reexecuteEvery(10, TimeUnit.MILLISECONDS)
+                        .until(10, TimeUnit.SECONDS, AT_LEAST_FIVE);
+                }
+            }));
+        }
+
+        for (Execution<Integer> poller : pollers) {
+            Assert.assertThat(poller.awaitAtMost(10, TimeUnit.SECONDS), is(5));
+        }
+    }
+
+    @Test
+    public void pollingTimesOut() throws Exception {
+        exception.expect(TimeoutExecutionException.class);
+
+        new ExecutionServiceImpl().execute(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return 0;
+            }
+        }).reexecuteEvery(10, TimeUnit.MILLISECONDS).until(200, TimeUnit.MILLISECONDS, AT_LEAST_FIVE);
+    }
+
+    @Test
+    public void pollingFails() throws Exception {
+        exception.expect(ExecutionException.class);
+        exception.expectMessage("counter broken");
+
+        final Counter counter = new Counter();
+        new ExecutionServiceImpl().execute(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                if (counter.call() == 3) {
+                    throw new ExecutionException("counter broken");
+                }
+                return 0;
+            }
+        }).reexecuteEvery(10, TimeUnit.MILLISECONDS).until(5, TimeUnit.SECONDS, AT_LEAST_FIVE);
+    }
+
+    private static class Counter implements Callable<Integer> {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Integer call() throws Exception {
+            return count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.arquillian.spacelift.execution.impl.ExecutionServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelBZip2InputStreamTest {
+
+    @Test
+    public void decompressConcatenatedStreams() throws IOException {
+        byte[] first = data(350000, 1);
+        byte[] second = data(120000, 2);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compress(compressed, first);
+        compress(compressed, new byte[0]);
+        compress(compressed, second);
+
+        byte[] expected = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, expected, first.length, second.length);
+
+        Assert.assertThat(decompress(compressed.toByteArray()), is(expected));
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptedBlock() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compress(compressed, data(350000, 3));
+        byte[] corrupted = compressed.toByteArray();
+        corrupted[corrupted.length / 2] ^= 0x10;
+
+        decompress(corrupted);
+    }
+
+    private static byte[] data(int size, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            // compressible, but not trivially
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return data;
+    }
+
+    private static void compress(ByteArrayOutputStream target, byte[] data) throws IOException {
+        BZip2CompressorOutputStream out = new BZip2CompressorOutputStream(target, 1);
+        out.write(data);
+        out.close();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        InputStream in = new ParallelBZip2InputStream(new ByteArrayInputStream(compressed), 3,
+            new ExecutionServiceImpl());
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.execution.ExecutionService;
+import org.arquillian.spacelift.execution.impl.BoundedExecutionService;
+import org.arquillian.spacelift.execution.impl.BoundedExecutionService.Configuration;
+import org.arquillian.spacelift.execution.impl.BoundedExecutionService.RejectionPolicy;
+import org.arquillian.spacelift.execution.impl.ExecutionServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReadAheadInputStreamTest {
+
+    @Test
+    public void readAhead() throws IOException {
+        byte[] data = data(1000000);
+        Assert.assertThat(read(new ReadAheadInputStream(new ByteArrayInputStream(data), 2, new ExecutionServiceImpl())),
+            is(data));
+    }
+
+    @Test(timeout = 10000)
+    public void readInlineWhenAllThreadsAreBusy() throws Exception {
+        ExecutionService service = new BoundedExecutionService(new Configuration().coreThreads(1).maxThreads(1)
+            .queueSize(0).rejectionPolicy(RejectionPolicy.CALLER_RUNS));
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        service.execute(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                release.await();
+                return null;
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+
+        try {
+            // more data than the queue can hold
+            byte[] data = data(1000000);
+            Assert.assertThat(read(new ReadAheadInputStream(new ByteArrayInputStream(data), 2, service)), is(data));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
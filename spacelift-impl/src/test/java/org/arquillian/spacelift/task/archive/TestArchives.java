@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.task.io.FileReader;
+import org.arquillian.spacelift.util.CharsetUtil;
+
+/**
+ * Creates archives with generated content and reads extracted content back
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+class TestArchives {
+
+    /**
+     * Returns content of {@code count} text files in a few directories, with sizes growing with their index
+     */
+    static Map<String, String> content(int count) {
+        Map<String, String> content = new LinkedHashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < i * 50; j++) {
+                text.append("entry ").append(i).append(" line ").append(j).append('\n');
+            }
+            content.put("root/dir" + (i % 5) + "/file" + i + ".txt", text.toString());
+        }
+        return content;
+    }
+
+    static File zip(File archive, Map<String, String> content, int method) throws IOException {
+        ZipArchiveOutputStream out = new ZipArchiveOutputStream(archive);
+        out.setMethod(method);
+        try {
+            for (Map.Entry<String, String> file : content.entrySet()) {
+                ZipArchiveEntry entry = new ZipArchiveEntry(file.getKey());
+                entry.setUnixMode(0755);
+                put(out, entry, file.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+
+    static File tar(File archive, Map<String, String> content, OutputStream compressed) throws IOException {
+        TarArchiveOutputStream out = new TarArchiveOutputStream(compressed);
+        try {
+            for (Map.Entry<String, String> file : content.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().getBytes(CharsetUtil.getUtf8()).length);
+                entry.setMode(0100755);
+                put(out, entry, file.getValue());
+            }
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+
+    static void put(ArchiveOutputStream out, ArchiveEntry entry, String content) throws IOException {
+        out.putArchiveEntry(entry);
+        out.write(content.getBytes(CharsetUtil.getUtf8()));
+        out.closeArchiveEntry();
+    }
+
+    static String read(File file) {
+        return Spacelift.task(Collections.singletonList(file), FileReader.class).execute().await().get(file);
+    }
+}
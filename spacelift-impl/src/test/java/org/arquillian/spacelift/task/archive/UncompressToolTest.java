@@ -20,8 +20,17 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 
 import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.task.io.FileWriter;
 import org.arquillian.spacelift.task.archive.UntarTool;
 import org.arquillian.spacelift.task.archive.UnzipTool;
 import org.junit.Assert;
@@ -148,4 +157,192 @@ public class UncompressToolTest {
         Assert.assertThat(present.exists(), is(true));
     }
 
+    @Test
+    public void extractZipInParallel() throws Exception {
+        Map<String, String> content = TestArchives.content(200);
+        File archive = TestArchives.zip(new File("target/parallel.zip"), content, ZipArchiveOutputStream.DEFLATED);
+
+        File extracted = Spacelift.task(archive, UnzipTool.class)
+            .parallelism(4)
+            .toDir("target/parallelzip")
+            .execute()
+            .await();
+
+        assertExtracted(extracted, content);
+    }
+
+    @Test
+    public void extractTarGzFileReadAhead() throws Exception {
+        Map<String, String> content = TestArchives.content(200);
+        File archive = new File("target/readahead.tgz");
+        TestArchives.tar(archive, content, new GzipCompressorOutputStream(new FileOutputStream(archive)));
+
+        File extracted = Spacelift.task(archive, UntarTool.class)
+            .parallelism(4)
+            .toDir("target/readaheadtgz")
+            .execute()
+            .await();
+
+        assertExtracted(extracted, content);
+    }
+
+    @Test
+    public void extractTarBzip2FileInParallel() throws Exception {
+        Map<String, String> content = TestArchives.content(200);
+        File archive = new File("target/parallel.tbz");
+        // smallest blocks, so the archive has many of them
+        TestArchives.tar(archive, content, new BZip2CompressorOutputStream(new FileOutputStream(archive), 1));
+
+        File extracted = Spacelift.task(archive, UntarTool.class)
+            .bzip2(true)
+            .parallelism(4)
+            .toDir("target/paralleltbz")
+            .execute()
+            .await();
+
+        assertExtracted(extracted, content);
+    }
+
+    @Test
+    public void extractStoredZipInParallel() throws Exception {
+        Map<String, String> content = TestArchives.content(200);
+        File archive = TestArchives.zip(new File("target/stored.zip"), content, ZipArchiveOutputStream.STORED);
+
+        File extracted = Spacelift.task(archive, UnzipTool.class)
+            .parallelism(4)
+            .toDir("target/storedzip")
+            .execute()
+            .await();
+
+        assertExtracted(extracted, content);
+    }
+
+    @Test
+    public void extractUncompressedTarFile() throws Exception {
+        Map<String, String> content = TestArchives.content(200);
+        File archive = new File("target/uncompressed.tar");
+        TestArchives.tar(archive, content, new FileOutputStream(archive));
+
+        File extracted = Spacelift.task(archive, UntarTool.class)
+            .gzip(false)
+            .toDir("target/uncompressedtar")
+            .execute()
+            .await();
+
+        assertExtracted(extracted, content);
+    }
+
+    @Test
+    public void extractZipFiltered() throws Exception {
+        Map<String, String> content = TestArchives.content(200);
+        File archive = TestArchives.zip(new File("target/filtered.zip"), content, ZipArchiveOutputStream.DEFLATED);
+
+        File extracted = Spacelift.task(archive, UnzipTool.class)
+            .include("*/dir1/")
+            .exclude("**/file1?.txt")
+            .maxEntrySize(100000)
+            .parallelism(4)
+            .toDir("target/filteredzip")
+            .execute()
+            .await();
+
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> entry : content.entrySet()) {
+            if (entry.getKey().startsWith("root/dir1/") && !entry.getKey().matches(".*/file1.\\.txt")
+                && entry.getValue().length() <= 100000) {
+                expected.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Assert.assertThat(expected.isEmpty(), is(false));
+        assertExtractedOnly(extracted, content, expected);
+    }
+
+    @Test
+    public void extractTarGzFiltered() throws Exception {
+        Map<String, String> content = TestArchives.content(100);
+        File archive = new File("target/filtered.tgz");
+        TestArchives.tar(archive, content, new GzipCompressorOutputStream(new FileOutputStream(archive)));
+
+        File extracted = Spacelift.task(archive, UntarTool.class)
+            .includeRegex("root/dir[23]/.*")
+            .excludeRegex(".*/file2\\d\\.txt")
+            .toDir("target/filteredtgz")
+            .execute()
+            .await();
+
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> entry : content.entrySet()) {
+            if (entry.getKey().matches("root/dir[23]/.*") && !entry.getKey().matches(".*/file2\\d\\.txt")) {
+                expected.put(entry.getKey(), entry.getValue());
+            }
+        }
+        assertExtractedOnly(extracted, content, expected);
+    }
+
+    @Test
+    public void extractUncompressedTarFiltered() throws Exception {
+        Map<String, String> content = TestArchives.content(100);
+        File archive = new File("target/filtered.tar");
+        TestArchives.tar(archive, content, new FileOutputStream(archive));
+
+        File extracted = Spacelift.task(archive, UntarTool.class)
+            .gzip(false)
+            .include("root/dir4/**")
+            .toDir("target/filteredtar")
+            .execute()
+            .await();
+
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> entry : content.entrySet()) {
+            if (entry.getKey().startsWith("root/dir4/")) {
+                expected.put(entry.getKey(), entry.getValue());
+            }
+        }
+        assertExtractedOnly(extracted, content, expected);
+    }
+
+    @Test
+    public void extractZipIncrementally() throws Exception {
+        Map<String, String> content = TestArchives.content(50);
+        File archive = TestArchives.zip(new File("target/incremental.zip"), content, ZipArchiveOutputStream.DEFLATED);
+        File destination = new File("target/incrementalzip");
+
+        Spacelift.task(archive, UnzipTool.class).incremental(true).toDir(destination).execute().await();
+        assertExtracted(destination, content);
+        Assert.assertThat(new File("target/incrementalzip.manifest").isFile(), is(true));
+
+        File unchanged = new File(destination, "root/dir1/file1.txt");
+        long unchangedModified = unchanged.lastModified();
+        File modified = new File(destination, "root/dir2/file2.txt");
+        Spacelift.task(Collections.singletonMap(modified, "modified"), FileWriter.class).execute().await();
+        File deleted = new File(destination, "root/dir3/file3.txt");
+        deleted.delete();
+
+        // one entry changes and one is removed from the archive
+        content.put("root/dir4/file4.txt", "changed");
+        String removed = "root/dir0/file5.txt";
+        content.remove(removed);
+        TestArchives.zip(archive, content, ZipArchiveOutputStream.DEFLATED);
+        Thread.sleep(100);
+
+        Spacelift.task(archive, UnzipTool.class).incremental(true).prune(true).toDir(destination).execute().await();
+        assertExtracted(destination, content);
+        Assert.assertThat(unchanged.lastModified(), is(unchangedModified));
+        Assert.assertThat(new File(destination, removed).exists(), is(false));
+    }
+
+    private static void assertExtractedOnly(File extracted, Map<String, String> content, Map<String, String> expected) {
+        assertExtracted(extracted, expected);
+        for (String name : content.keySet()) {
+            Assert.assertThat(name, new File(extracted, name).exists(), is(expected.containsKey(name)));
+        }
+    }
+
+    private static void assertExtracted(File extracted, Map<String, String> content) {
+        for (Map.Entry<String, String> entry : content.entrySet()) {
+            File file = new File(extracted, entry.getKey());
+            Assert.assertThat(TestArchives.read(file), is(entry.getValue()));
+            Assert.assertThat(file.canExecute(), is(true));
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.io;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.arquillian.spacelift.Spacelift;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileReaderTest {
+
+    private final List<File> files = new ArrayList<File>();
+
+    @Before
+    public void createFiles() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            File file = File.createTempFile("file-reader-test", ".txt");
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < i * 100; j++) {
+                content.append("řádek ").append(i).append(' ').append(j).append('\n');
+            }
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(content.toString().getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            files.add(file);
+        }
+    }
+
+    @After
+    public void deleteFiles() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void readInParallel() {
+        Map<File, String> serial = Spacelift.task(files, FileReader.class).execute().await();
+        Map<File, String> parallel = Spacelift.task(files, FileReader.class).parallelism(4).execute().await();
+
+        assertThat(parallel.size(), is(files.size()));
+        assertThat(parallel, is(serial));
+    }
+
+    @Test
+    public void readMapped() {
+        Map<File, String> buffered = Spacelift.task(files, FileReader.class).execute().await();
+        Map<File, String> mapped = Spacelift.task(files, FileReader.class).mappedThreshold(0).execute().await();
+
+        assertThat(mapped, is(buffered));
+        assertThat(mapped.get(files.get(1)).startsWith("řádek 1 0\n"), is(true));
+    }
+}
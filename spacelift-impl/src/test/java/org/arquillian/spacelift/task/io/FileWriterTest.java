@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.io;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.arquillian.spacelift.Spacelift;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileWriterTest {
+
+    private static final long TIMESTAMP = 1000000000000L;
+
+    private File same;
+    private File changed;
+    private File longer;
+    private File missing;
+
+    @Before
+    public void createFiles() throws IOException {
+        same = File.createTempFile("file-writer-test", ".txt");
+        changed = File.createTempFile("file-writer-test", ".txt");
+        longer = File.createTempFile("file-writer-test", ".txt");
+        missing = new File(same.getPath() + "-missing");
+
+        Map<File, String> contents = new LinkedHashMap<File, String>();
+        contents.put(same, "řádek");
+        contents.put(changed, "řádek");
+        contents.put(longer, "řádek 2");
+        Spacelift.task(contents, FileWriter.class).execute().await();
+        for (File file : contents.keySet()) {
+            file.setLastModified(TIMESTAMP);
+        }
+    }
+
+    @After
+    public void deleteFiles() {
+        for (File file : Arrays.asList(same, changed, longer, missing)) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void writeIfChanged() {
+        Map<File, String> contents = new LinkedHashMap<File, String>();
+        contents.put(same, "řádek");
+        contents.put(changed, "řádeK");
+        contents.put(longer, "řádek");
+        contents.put(missing, "");
+
+        List<File> written = Spacelift.task(contents, FileWriter.class).writeIfChanged().execute().await();
+
+        assertThat(written, is(Arrays.asList(changed, longer, missing)));
+        assertThat(same.lastModified(), is(TIMESTAMP));
+        assertThat(read(changed), is("řádeK"));
+        assertThat(read(longer), is("řádek"));
+        assertThat(missing.exists(), is(true));
+    }
+
+    private String read(File file) {
+        return Spacelift.task(Collections.singletonList(file), FileReader.class).execute().await().get(file);
+    }
+}
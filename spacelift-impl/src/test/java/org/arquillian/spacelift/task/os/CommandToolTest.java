@@ -4,7 +4,10 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.SystemUtils;
@@ -12,7 +15,10 @@ import org.arquillian.spacelift.Spacelift;
 import org.arquillian.spacelift.execution.Execution;
 import org.arquillian.spacelift.execution.ExecutionException;
 import org.arquillian.spacelift.process.CommandBuilder;
+import org.arquillian.spacelift.process.ProcessInteractionBuilder;
 import org.arquillian.spacelift.process.ProcessResult;
+import org.arquillian.spacelift.process.StreamingProcessResult;
+import org.arquillian.spacelift.task.Task;
 import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Rule;
@@ -142,8 +148,139 @@ public class CommandToolTest {
         }
     }
 
+    @Test
+    public void retainLastLines() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        ProcessResult result = Spacelift.task(CommandTool.class).programName("seq").parameters("1", "1000")
+            .outputRetention(OutputRetention.lastLines(10))
+            .execute().await();
+
+        Assert.assertThat(result.output().size(), is(10));
+        Assert.assertThat(result.output().get(9), is("1000"));
+    }
+
+    @Test
+    public void separateErrorStream() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        ProcessResult result = Spacelift.task(CommandTool.class).programName("sh")
+            .parameters("-c", "echo out; echo err 1>&2; echo out2")
+            .separateErrorStream()
+            .execute().await();
+
+        Assert.assertThat(result.output(), is(Arrays.asList("out", "out2")));
+        Assert.assertThat(((StreamingProcessResult) result).errorOutput(), is(Arrays.asList("err")));
+    }
+
+    @Test
+    public void replyWhileErrorOutputIsFlooded() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        ProcessResult result = Spacelift.task(CommandTool.class).programName("sh")
+            .parameters("-c", "seq 1 100000 1>&2; read answer; echo got $answer")
+            .interaction(new ProcessInteractionBuilder().when("got.*").printToOut())
+            .errorInteraction(new ProcessInteractionBuilder().when("100000").replyWith("yes\n"))
+            .errorOutputRetention(OutputRetention.lastLines(1))
+            .execute().await();
+
+        Assert.assertThat(result.output(), is(Arrays.asList("got yes")));
+        Assert.assertThat(((StreamingProcessResult) result).errorOutput().size(), is(1));
+    }
+
+    @Test
+    public void sharedIoThreads() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        List<Execution<ProcessResult>> executions = new ArrayList<Execution<ProcessResult>>();
+        for (int i = 0; i < 100; i++) {
+            executions.add(Spacelift.task(CommandTool.class).programName("sh")
+                .parameters("-c", "printf 'Name: '; read name; echo hello $name " + i)
+                .interaction(new ProcessInteractionBuilder().when("Name: ").replyWith("spacelift\n"))
+                .sharedIoThreads()
+                .execute());
+        }
+
+        for (int i = 0; i < executions.size(); i++) {
+            ProcessResult result = executions.get(i).await();
+            Assert.assertThat(result.output(), is(Arrays.asList("Name: spacelift", "hello spacelift " + i)));
+            Assert.assertThat(result.exitValue(), is(0));
+        }
+    }
+
+    @Test
+    public void sharedIoThreadsInChain() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        List<String> output = Spacelift.task(CommandTool.class).programName("sh")
+            .parameters("-c", "echo first; sleep 0.2; echo second")
+            .sharedIoThreads()
+            .then(OutputOf.class)
+            .execute().await();
+
+        Assert.assertThat(output, is(Arrays.asList("first", "second")));
+    }
+
+    @Test
+    public void sharedIoThreadsFailure() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        exception.expect(ExecutionException.class);
+        exception.expectMessage("failed with 3");
+
+        Spacelift.task(CommandTool.class).programName("sh").parameters("-c", "echo failing; exit 3")
+            .sharedIoThreads()
+            .execute().await();
+    }
+
+    @Test
+    public void followRunningProcess() throws Exception {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        Execution<ProcessResult> yes = Spacelift.task(CommandTool.class).programName("yes").parameters("spacelift")
+            .outputRetention(OutputRetention.lastLines(100))
+            .shouldExitWith(143)
+            .execute();
+
+        // wait until process has started
+        Thread.sleep(500);
+
+        StreamingProcessResult running = ((ProcessBasedExecution<ProcessResult>) yes).currentResult();
+        int count = 0;
+        for (String line : running.followOutput()) {
+            Assert.assertThat(line, is("spacelift"));
+            if (++count == 1000) {
+                break;
+            }
+        }
+
+        yes.terminate();
+        Assert.assertThat(running.output().size(), is(100));
+    }
+
     @Test
     public void workingDir() throws Exception {
         Spacelift.task(CommandTool.class).programName("yes");
     }
-}
\ No newline at end of file
+
+    public static class OutputOf extends Task<ProcessResult, List<String>> {
+        @Override
+        protected List<String> process(ProcessResult input) throws Exception {
+            return input.output();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.arquillian.spacelift.task.os;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.io.IOException;
+
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ProcessCompletionTest {
+
+    @Test
+    public void completed() throws Exception {
+        ProcessCompletion<String> completion = new ProcessCompletion<String>();
+        Assert.assertThat(completion.isFinished(), is(false));
+
+        completion.complete("done");
+
+        Assert.assertThat(completion.await(), is("done"));
+        Assert.assertThat(completion.isFinished(), is(true));
+        Assert.assertThat(completion.hasFailed(), is(false));
+    }
+
+    @Test
+    public void failed() {
+        ProcessCompletion<String> completion = new ProcessCompletion<String>();
+
+        completion.fail(new IOException("Stream closed"));
+
+        try {
+            completion.await();
+            Assert.fail("Failed completion must not return a result");
+        } catch (ExecutionException e) {
+            Assert.assertThat(e.getCause() instanceof IOException, is(true));
+        }
+        Assert.assertThat(completion.isFinished(), is(true));
+        Assert.assertThat(completion.hasFailed(), is(true));
+    }
+
+    @Test
+    public void terminated() throws Exception {
+        ProcessCompletion<String> completion = new ProcessCompletion<String>();
+
+        completion.terminate();
+
+        Assert.assertThat(completion.isFinished(), is(true));
+        Assert.assertThat(completion.hasFailed(), is(true));
+    }
+}
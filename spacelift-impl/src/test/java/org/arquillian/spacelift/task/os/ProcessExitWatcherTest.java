@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat Middleware LLC, and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.os;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.process.ProcessResult;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ProcessExitWatcherTest {
+
+    @Before
+    public void linuxOnly() {
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+    }
+
+    @Test
+    public void reaperThread() throws Exception {
+        watchProcesses(new ProcessExitWatcher(false));
+    }
+
+    @Test
+    public void sharedInstance() throws Exception {
+        watchProcesses(ProcessExitWatcher.getInstance());
+    }
+
+    @Test
+    public void executionCallback() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final int[] exitValue = new int[1];
+
+        ProcessBasedExecution<ProcessResult> execution = (ProcessBasedExecution<ProcessResult>) Spacelift
+            .task(CommandTool.class).programName("sh").parameters("-c", "exit 3").shouldExitWith(3).execute();
+        execution.await();
+
+        execution.onExit(new ProcessExitListener() {
+            @Override
+            public void processExited(Process process, int value) {
+                exitValue[0] = value;
+                latch.countDown();
+            }
+        });
+
+        Assert.assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(exitValue[0], is(3));
+        Assert.assertThat(execution.isFinished(), is(true));
+        Assert.assertThat(execution.hasFailed(), is(false));
+    }
+
+    private void watchProcesses(ProcessExitWatcher watcher) throws Exception {
+        int count = 20;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final ConcurrentHashMap<Process, Integer> exitValues = new ConcurrentHashMap<Process, Integer>();
+
+        Process[] processes = new Process[count];
+        for (int i = 0; i < count; i++) {
+            processes[i] = new ProcessBuilder("sh", "-c", "sleep 0.1; exit " + i).start();
+            watcher.watch(processes[i], new ProcessExitListener() {
+                @Override
+                public void processExited(Process process, int exitValue) {
+                    exitValues.put(process, exitValue);
+                    latch.countDown();
+                }
+            });
+        }
+
+        Assert.assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < count; i++) {
+            Assert.assertThat(exitValues.get(processes[i]), is(i));
+        }
+    }
+}
@@ -80,4 +80,26 @@ public class ProcessInteractionTest {
 
         cat.await();
     }
+
+    @Test
+    public void startTextPerCharacter() {
+
+        // run only on linux
+        Assume.assumeThat(SystemUtils.IS_OS_LINUX, is(true));
+
+        Execution<ProcessResult> cat = Spacelift.task(CommandTool.class)
+            .programName("cat")
+            .shouldExitWith(143)
+            .interactPerCharacter()
+            .interaction(new ProcessInteractionBuilder()
+                .whenStarts()
+                .typeIn("hello")
+                .when("hello")
+                .replyWith(" Spacelift")
+                .when(".*Spacelift")
+                .terminate())
+            .execute();
+
+        cat.await();
+    }
 }
@@ -0,0 +1,125 @@
+package org.arquillian.spacelift.task.os;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks output retention policies
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ProcessOutputBufferTest {
+
+    @Test
+    public void keepAll() {
+        ProcessOutputBuffer buffer = fill(OutputRetention.all(), 100);
+        Assert.assertThat(buffer.lines().size(), is(100));
+        Assert.assertThat(buffer.tail(2), is(Arrays.asList("98", "99")));
+    }
+
+    @Test
+    public void keepLastLines() {
+        ProcessOutputBuffer buffer = fill(OutputRetention.lastLines(3), 100);
+        Assert.assertThat(buffer.lines(), is(Arrays.asList("97", "98", "99")));
+        Assert.assertThat(buffer.tail(50), is(Arrays.asList("97", "98", "99")));
+    }
+
+    @Test
+    public void keepLastCharacters() {
+        ProcessOutputBuffer buffer = fill(OutputRetention.lastCharacters(5), 100);
+        Assert.assertThat(buffer.lines(), is(Arrays.asList("98", "99")));
+
+        buffer = OutputRetention.lastCharacters(5).createBuffer();
+        buffer.add("a very long line");
+        Assert.assertThat(buffer.lines(), is(Arrays.asList("a very long line")));
+    }
+
+    @Test
+    public void spillToFile() {
+        ProcessOutputBuffer buffer = fill(OutputRetention.spillToFile(10), 1000);
+        Assert.assertThat(buffer.lines().size(), is(1000));
+        Assert.assertThat(buffer.lines().get(0), is("0"));
+        Assert.assertThat(buffer.tail(2), is(Arrays.asList("998", "999")));
+
+        buffer = fill(OutputRetention.spillToFile(10), 5);
+        Assert.assertThat(buffer.lines(), is(Arrays.asList("0", "1", "2", "3", "4")));
+    }
+
+    @Test
+    public void spillFileIsDeletedOnDispose() {
+        List<File> before = spillFiles();
+        ProcessOutputBuffer buffer = fill(OutputRetention.spillToFile(10), 100);
+
+        List<File> created = spillFiles();
+        created.removeAll(before);
+        Assert.assertThat(created.size(), is(1));
+
+        buffer.dispose();
+        Assert.assertThat(created.get(0).exists(), is(false));
+        Assert.assertThat(buffer.lines().size(), is(10));
+        Assert.assertThat(buffer.lines().get(9), is("99"));
+    }
+
+    @Test
+    public void discard() {
+        ProcessOutputBuffer buffer = fill(OutputRetention.discard(), 100);
+        Assert.assertThat(buffer.lines(), is(Collections.<String> emptyList()));
+        Assert.assertThat(buffer.tail(50), is(Collections.<String> emptyList()));
+    }
+
+    @Test(timeout = 5000)
+    public void followWhileRunning() throws Exception {
+        final ProcessOutputBuffer buffer = OutputRetention.lastLines(1000).createBuffer();
+        final List<String> followed = new ArrayList<String>();
+
+        Thread follower = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (String line : buffer.follow()) {
+                    followed.add(line);
+                }
+            }
+        });
+        follower.start();
+
+        for (int i = 0; i < 100; i++) {
+            buffer.add(String.valueOf(i));
+        }
+        buffer.close();
+        follower.join();
+
+        Assert.assertThat(followed.size(), is(100));
+        Assert.assertThat(followed.get(99), is("99"));
+    }
+
+    private static List<File> spillFiles() {
+        List<File> files = new ArrayList<File>();
+        File[] candidates = new File(System.getProperty("java.io.tmpdir")).listFiles();
+        if (candidates != null) {
+            for (File candidate : candidates) {
+                if (candidate.getName().startsWith("spacelift-output")) {
+                    files.add(candidate);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static ProcessOutputBuffer fill(OutputRetention retention, int lines) {
+        ProcessOutputBuffer buffer = retention.createBuffer();
+        for (int i = 0; i < lines; i++) {
+            buffer.add(String.valueOf(i));
+        }
+        buffer.close();
+        return buffer;
+    }
+}
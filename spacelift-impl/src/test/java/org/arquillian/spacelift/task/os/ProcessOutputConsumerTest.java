@@ -0,0 +1,172 @@
+package org.arquillian.spacelift.task.os;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.arquillian.spacelift.execution.CountDownWatch;
+import org.arquillian.spacelift.execution.Execution;
+import org.arquillian.spacelift.execution.ExecutionCondition;
+import org.arquillian.spacelift.execution.ExecutionException;
+import org.arquillian.spacelift.execution.TimeoutExecutionException;
+import org.arquillian.spacelift.process.ProcessInteractionBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks splitting of process output into lines
+ *
+ * @author <a href="kpiwko@redhat.com">Karel Piwko</a>
+ *
+ */
+public class ProcessOutputConsumerTest {
+
+    @Test
+    public void splitLines() throws Exception {
+        List<String> output = consume("foo\nbar\r\nbaz\r\n\nlast", new ProcessInteractionBuilder());
+        Assert.assertThat(output, is(Arrays.asList("foo", "bar", "baz", "", "last")));
+    }
+
+    @Test
+    public void sameOutputAsPerCharacter() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("line number ").append(i).append('\n');
+        }
+
+        List<String> lines = consume(sb.toString(), new ProcessInteractionBuilder());
+        ProcessOutputBuffer chars = OutputRetention.all().createBuffer();
+        ProcessOutputConsumer.perCharacter(new RunningProcess(),
+            new ProcessInteractionApplicator(new ProcessInteractionBuilder().build(), "test"),
+            new ByteArrayOutputStream(), chars, "test").consume(new StringReader(sb.toString()));
+
+        Assert.assertThat(lines.size(), is(5000));
+        Assert.assertThat(lines, is(chars.lines()));
+    }
+
+    @Test
+    public void replyToPrompt() throws Exception {
+        ByteArrayOutputStream stdin = new ByteArrayOutputStream();
+        ProcessOutputBuffer output = OutputRetention.all().createBuffer();
+        ProcessOutputConsumer.lineBuffered(new RunningProcess(),
+            new ProcessInteractionApplicator(new ProcessInteractionBuilder().when("Password:").replyWith("secret\n").build(),
+                "test"),
+            stdin, output, "test").consume(new StringReader("Password:") {
+                // process waits for the answer
+                @Override
+                public boolean ready() {
+                    return false;
+                }
+            });
+
+        Assert.assertThat(stdin.toString(), is("secret\n"));
+        Assert.assertThat(output.lines(), is(Arrays.asList("Password:secret")));
+    }
+
+    @Test
+    public void terminateOnLine() throws Exception {
+        RunningProcess execution = new RunningProcess();
+
+        ProcessOutputBuffer output = OutputRetention.all().createBuffer();
+        ProcessOutputConsumer.lineBuffered(execution,
+            new ProcessInteractionApplicator(new ProcessInteractionBuilder().when("stop").terminate().build(), "test"),
+            new ByteArrayOutputStream(), output, "test").consume(new StringReader("go\nstop\nignored\n"));
+
+        Assert.assertThat(execution.terminated, is(true));
+        Assert.assertThat(output.lines(), is(Arrays.asList("go", "stop")));
+    }
+
+    @Test
+    public void noTerminationWithoutMatch() throws Exception {
+        RunningProcess execution = new RunningProcess();
+
+        ProcessOutputBuffer output = OutputRetention.all().createBuffer();
+        ProcessOutputConsumer.lineBuffered(execution,
+            new ProcessInteractionApplicator(new ProcessInteractionBuilder().when("stop").terminate().build(), "test"),
+            new ByteArrayOutputStream(), output, "test").consume(new StringReader("go\nstopping\n"));
+
+        Assert.assertThat(execution.terminated, is(false));
+        Assert.assertThat(output.lines(), is(Arrays.asList("go", "stopping")));
+    }
+
+    private static List<String> consume(String text, ProcessInteractionBuilder interaction) throws Exception {
+        ProcessOutputBuffer output = OutputRetention.all().createBuffer();
+        ProcessOutputConsumer.lineBuffered(new RunningProcess(), new ProcessInteractionApplicator(interaction.build(), "test"),
+            new ByteArrayOutputStream(), output, "test").consume(new StringReader(text));
+        return output.lines();
+    }
+
+    private static class RunningProcess implements Execution<Process> {
+
+        boolean markedAsFinished;
+        boolean terminated;
+
+        @Override
+        public Execution<Process> markAsFinished() {
+            this.markedAsFinished = true;
+            return this;
+        }
+
+        @Override
+        public Execution<Process> registerShutdownHook() {
+            return this;
+        }
+
+        @Override
+        public boolean isMarkedAsFinished() {
+            return markedAsFinished;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return markedAsFinished;
+        }
+
+        @Override
+        public boolean hasFailed() throws IllegalStateException {
+            return false;
+        }
+
+        @Override
+        public Execution<Process> terminate() throws ExecutionException {
+            this.terminated = true;
+            return this;
+        }
+
+        @Override
+        public Process await() throws ExecutionException {
+            return null;
+        }
+
+        @Override
+        public Process awaitAtMost(long timeout, TimeUnit unit) throws ExecutionException, TimeoutExecutionException {
+            return null;
+        }
+
+        @Override
+        public Process awaitAtMost(CountDownWatch timeout) throws ExecutionException, TimeoutExecutionException {
+            return null;
+        }
+
+        @Override
+        public Execution<Process> reexecuteEvery(long step, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public Process until(long timeout, TimeUnit unit, ExecutionCondition<Process> condition) throws ExecutionException,
+            TimeoutExecutionException {
+            return null;
+        }
+
+        @Override
+        public Process until(CountDownWatch timeout, ExecutionCondition<Process> condition) throws ExecutionException,
+            TimeoutExecutionException {
+            return null;
+        }
+    }
+}
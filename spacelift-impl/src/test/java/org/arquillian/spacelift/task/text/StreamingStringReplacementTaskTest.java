@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2014, Red Hat, Inc. and/or its affiliates, and individual
+ * contributors by the @authors tag. See the copyright.txt in the
+ * distribution for a full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.arquillian.spacelift.task.text;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.task.io.FileReader;
+import org.arquillian.spacelift.task.io.FileWriter;
+import org.arquillian.spacelift.task.io.StreamingFileReader;
+import org.arquillian.spacelift.task.io.StreamingFileWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamingStringReplacementTaskTest {
+
+    private List<File> files;
+
+    @Before
+    public void createFiles() throws IOException {
+        files = new ArrayList<File>();
+        Map<File, String> contents = new HashMap<File, String>();
+        for (int i = 0; i < 50; i++) {
+            File file = File.createTempFile("streaming-replacement-test", ".txt");
+            files.add(file);
+            contents.put(file, "This is file " + i + "\nThis is the end");
+        }
+        Spacelift.task(contents, FileWriter.class).execute().await();
+    }
+
+    @After
+    public void deleteFiles() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void replaceFilesAsStream() {
+        List<File> written = Spacelift.task(files, StreamingFileReader.class).capacity(2)
+            .then(StreamingStringReplacementTask.class)
+            .replace("This is").with("Here is").capacity(2)
+            .then(StreamingFileWriter.class)
+            .execute().await();
+
+        assertThat(new HashSet<File>(written), is(new HashSet<File>(files)));
+        Map<File, String> contents = Spacelift.task(files, FileReader.class).execute().await();
+        for (int i = 0; i < files.size(); i++) {
+            assertThat(contents.get(files.get(i)), is("Here is file " + i + "\nHere is the end"));
+        }
+    }
+
+    @Test
+    public void writeIfChangedSkipsUnchangedFiles() {
+        List<File> written = Spacelift.task(files, StreamingFileReader.class)
+            .then(StreamingStringReplacementTask.class)
+            .replace("file 7\n").with("file seven\n")
+            .then(StreamingFileWriter.class).writeIfChanged()
+            .execute().await();
+
+        assertThat(written.size(), is(1));
+        assertThat(written.get(0), is(files.get(7)));
+    }
+}
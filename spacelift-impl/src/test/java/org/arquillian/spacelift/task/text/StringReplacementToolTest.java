@@ -16,18 +16,29 @@
  */
 package org.arquillian.spacelift.task.text;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import org.arquillian.spacelift.Spacelift;
+import org.arquillian.spacelift.execution.ExecutionException;
 import org.arquillian.spacelift.task.io.FileReader;
 import org.arquillian.spacelift.task.io.FileSelector;
 import org.arquillian.spacelift.task.io.WriteToFileTool;
 import org.arquillian.spacelift.task.text.StringReplacementTool;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -100,6 +111,246 @@ public class StringReplacementToolTest {
         assertThat(readFromFile(tempFile), is(contentAfter3));
     }
 
+    @Test
+    public void replacementAcrossChunksTest() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("line ").append(i).append(" foo  bar\n");
+        }
+        String[][] replacements = new String[][] {
+            { "foo\\s+bar", "baz" },
+            { "^line", "row" },
+            { "(\\d+)$", "<$1>" },
+            { "(?m)^row (\\d)", "$1:" },
+            { "x*", "-" }
+        };
+
+        StringReplacementTool tool = Spacelift.task(StringReplacementTool.class).in(tempFile).window(16);
+        String expected = content.toString();
+        for (String[] replacement : replacements) {
+            tool.replace(replacement[0]).with(replacement[1]);
+            expected = expected.replaceAll(replacement[0], replacement[1]);
+        }
+
+        Spacelift.task(WriteToFileTool.class).write(content.toString()).to(tempFile).execute().await();
+        tool.execute().await();
+
+        assertThat(readFromFile(tempFile), is(expected));
+        assertThat(tempFile.getParentFile().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("." + tempFile.getName());
+            }
+        }).length, is(0));
+    }
+
+    @Test
+    public void singlePassReplacementTest() throws Exception {
+        Spacelift.task(WriteToFileTool.class).write("aab ss 1x2 x3 a10 qt").to(tempFile).execute().await();
+
+        Spacelift.task(StringReplacementTool.class)
+            .in(tempFile)
+            .singlePass()
+            .replace("a").with("b")
+            .replace("b").with("c")
+            .replace("(\\w)\\1").with("[$1]")
+            .replace("(\\d)x(\\d)").with("$2$10")
+            .replace("\\Q(\\1)\\E|q(t)").with("$0$1")
+            .execute().await();
+
+        assertThat(readFromFile(tempFile), is("bbc [s] 210 x3 b10 qtt"));
+    }
+
+    @Test
+    public void parallelReplacementTest() throws Exception {
+        File directory = new File(tempFile.getParentFile(), tempFile.getName() + "-dir");
+        directory.mkdirs();
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 50; i++) {
+            File file = new File(directory, "file" + i + ".txt");
+            Spacelift.task(WriteToFileTool.class).write("file " + i + " of ${count}").to(file).execute().await();
+            files.add(file);
+        }
+
+        try {
+            List<File> replaced = Spacelift.task(StringReplacementTool.class)
+                .in(files.toArray(new File[files.size()]))
+                .parallelism(4)
+                .replace("\\$\\{count\\}").with("50")
+                .execute().await();
+
+            assertThat(replaced, is(files));
+            for (int i = 0; i < 50; i++) {
+                assertThat(readFromFile(files.get(i)), is("file " + i + " of 50"));
+            }
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void failuresAreReportedTogetherTest() throws Exception {
+        File missing1 = new File(tempFile.getParentFile(), tempFile.getName() + "-missing1");
+        File missing2 = new File(tempFile.getParentFile(), tempFile.getName() + "-missing2");
+
+        try {
+            Spacelift.task(StringReplacementTool.class)
+                .in(missing1, tempFile, missing2)
+                .parallelism(3)
+                .replace("o").with("O")
+                .execute().await();
+            fail("Replacement in missing files should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getMessage(), containsString("2 of 3 files"));
+            assertThat(e.getMessage(), containsString(missing1.getName()));
+            assertThat(e.getMessage(), containsString(missing2.getName()));
+        }
+
+        assertThat(readFromFile(tempFile), is(contentAfter1));
+        assertThat(missing1.exists(), is(false));
+    }
+
+    @Test
+    public void failedFileIsLeftUntouchedTest() throws Exception {
+        File other = File.createTempFile("sed-test", ".tmp");
+        try {
+            Spacelift.task(WriteToFileTool.class).write("the third one").to(other).execute().await();
+
+            // group 2 does not exist, so replacement fails at the match in the last line of tempFile
+            Spacelift.task(StringReplacementTool.class)
+                .in(tempFile, other)
+                .parallelism(2)
+                .replace("(This is) the third").with("$2")
+                .execute().await();
+            fail("Replacement by a missing group should fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getMessage(), containsString("1 of 2 files"));
+        } finally {
+            other.delete();
+        }
+
+        assertThat(readFromFile(tempFile), is(contentBefore));
+        String[] temporaryFiles = tempFile.getParentFile().list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("." + tempFile.getName() + "-");
+            }
+        });
+        assertThat(temporaryFiles.length, is(0));
+    }
+
+    @Test
+    public void writeIfChangedTest() throws Exception {
+        File unchanged = File.createTempFile("sed-test", ".tmp");
+        try {
+            Spacelift.task(WriteToFileTool.class).write("quiet text, unchanged").to(unchanged).execute().await();
+            unchanged.setLastModified(1000000000000L);
+
+            List<File> modified = Spacelift.task(StringReplacementTool.class)
+                .in(unchanged, tempFile)
+                .writeIfChanged()
+                .replace("o").with("O")
+                .execute().await();
+
+            assertThat(modified, is(Arrays.asList(tempFile)));
+            assertThat(unchanged.lastModified(), is(1000000000000L));
+            assertThat(readFromFile(tempFile), is(contentAfter1));
+        } finally {
+            unchanged.delete();
+        }
+    }
+
+    @Test
+    public void writeIfChangedIgnoresIdenticalReplacementTest() throws Exception {
+        tempFile.setLastModified(1000000000000L);
+
+        List<File> modified = Spacelift.task(StringReplacementTool.class)
+            .in(tempFile)
+            .writeIfChanged()
+            .replace("(t)(h)is").with("$1$2is")
+            .execute().await();
+
+        assertThat(modified.isEmpty(), is(true));
+        assertThat(tempFile.lastModified(), is(1000000000000L));
+        assertThat(readFromFile(tempFile), is(contentBefore));
+    }
+
+    @Test
+    public void writeIfChangedLateReplacementTest() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        Spacelift.task(WriteToFileTool.class).write(content + "last").to(tempFile).execute().await();
+
+        List<File> modified = Spacelift.task(StringReplacementTool.class)
+            .in(tempFile)
+            .writeIfChanged()
+            .replace("last").with("LAST")
+            .execute().await();
+
+        assertThat(modified, is(Arrays.asList(tempFile)));
+        assertThat(readFromFile(tempFile), is(content + "LAST"));
+    }
+
+    @Test
+    public void permissionsArePreservedTest() throws Exception {
+        restrictToOwner(tempFile);
+        Assume.assumeThat(permissions(tempFile), is("rw-------"));
+
+        Spacelift.task(StringReplacementTool.class)
+                .in(tempFile)
+                .replace("o").with("O")
+                .execute().await();
+
+        assertThat(readFromFile(tempFile), is(contentAfter1));
+        assertThat(permissions(tempFile), is("rw-------"));
+    }
+
+    @Test
+    public void permissionsArePreservedInPlaceTest() throws Exception {
+        restrictToOwner(tempFile);
+        Assume.assumeThat(permissions(tempFile), is("rw-------"));
+
+        Spacelift.task(StringReplacementTool.class)
+                .in(tempFile)
+                .inPlace()
+                .replace("o").with("O")
+                .execute().await();
+
+        assertThat(readFromFile(tempFile), is(contentAfter1));
+        assertThat(permissions(tempFile), is("rw-------"));
+    }
+
+    private static void restrictToOwner(File file) {
+        Assume.assumeTrue(file.setReadable(false, false) && file.setReadable(true, true)
+            && file.setWritable(false, false) && file.setWritable(true, true) && file.setExecutable(false, false));
+    }
+
+    /**
+     * Returns POSIX permissions of the file, such as {@code rw-r--r--}, or {@code null} if they cannot be read, as
+     * java.nio.file is not available on Java 1.6
+     */
+    private static String permissions(File file) throws Exception {
+        try {
+            Class<?> files = Class.forName("java.nio.file.Files");
+            Class<?> path = Class.forName("java.nio.file.Path");
+            Object noLinkOptions = Array.newInstance(Class.forName("java.nio.file.LinkOption"), 0);
+            Object permissions = files.getMethod("getPosixFilePermissions", path, noLinkOptions.getClass())
+                .invoke(null, File.class.getMethod("toPath").invoke(file), noLinkOptions);
+            return (String) Class.forName("java.nio.file.attribute.PosixFilePermissions").getMethod("toString", Set.class)
+                .invoke(null, permissions);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // not a POSIX file system
+            return null;
+        }
+    }
+
     private String readFromFile(File file) {
         return Spacelift.task(FileSelector.class)
                 .select(file)